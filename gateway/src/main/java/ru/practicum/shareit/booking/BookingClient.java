@@ -4,13 +4,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,11 +22,12 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory shareitServerRequestFactory) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .requestFactory(() -> shareitServerRequestFactory)
                         .build()
         );
     }
@@ -35,11 +40,21 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved=" + approved, userId);
     }
 
+    public ResponseEntity<Object> patchBookings(List<BookingDecisionDto> decisions, long userId) {
+        return patch("/batch", userId, decisions);
+    }
+
     public ResponseEntity<Object> getBookingById(long bookingId, long userId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getCurrentUserBookings(State state, long userId, Integer from, Integer size) {
+    public ResponseEntity<Object> getCurrentUserBookings(State state, long userId, Integer from, Integer size, String cursor) {
+        if (cursor != null) {
+            Map<String, Object> parameters = cursorParameters(cursor, size);
+            parameters.put("state", state);
+            return get(withCursor("?state={state}&", size), userId, parameters);
+        }
+
         if (from == null || size == null)
             return get("?state={state}", userId, Map.of("state", state));
 
@@ -52,7 +67,13 @@ public class BookingClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getOwnerBookings(State state, long userId, Integer from, Integer size) {
+    public ResponseEntity<Object> getOwnerBookings(State state, long userId, Integer from, Integer size, String cursor) {
+        if (cursor != null) {
+            Map<String, Object> parameters = cursorParameters(cursor, size);
+            parameters.put("state", state);
+            return get(withCursor("/owner?state={state}&", size), userId, parameters);
+        }
+
         if (from == null || size == null)
             return get("/owner?state={state}", userId, Map.of("state", state));
 
@@ -64,4 +85,20 @@ public class BookingClient extends BaseClient {
 
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
+
+    public ResponseEntity<Object> getCurrentUserBookingsSummary(long userId) {
+        return get("/summary", userId);
+    }
+
+    public ResponseEntity<Object> getOwnerBookingsSummary(long userId) {
+        return get("/owner/summary", userId);
+    }
+
+    public ResponseEntity<StreamingResponseBody> streamCurrentUserBookings(State state, long userId) throws IOException {
+        return stream("?state={state}", userId, Map.of("state", state));
+    }
+
+    public ResponseEntity<StreamingResponseBody> streamOwnerBookings(State state, long userId) throws IOException {
+        return stream("/owner?state={state}", userId, Map.of("state", state));
+    }
 }
@@ -1,14 +1,19 @@
 package ru.practicum.shareit.booking;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -16,6 +21,7 @@ import javax.validation.Valid;
 public class BookingController {
     BookingClient bookingClient;
     private static final String SHARER_HEADER = "X-Sharer-User-Id";
+    private static final int MAX_BATCH_SIZE = 1000;
 
     @PostMapping
     public ResponseEntity<Object> createBooking(@RequestBody @Valid BookingDto bookingDto,
@@ -30,6 +36,15 @@ public class BookingController {
         return bookingClient.patchBooking(bookingId, approved, userId);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> patchBookings(@RequestBody List<BookingDecisionDto> decisions,
+                                                @RequestHeader(SHARER_HEADER) long userId) throws ValidationException {
+        if (decisions.isEmpty() || decisions.size() > MAX_BATCH_SIZE)
+            throw new ValidationException("Размер пакета решений должен быть от 1 до " + MAX_BATCH_SIZE);
+
+        return bookingClient.patchBookings(decisions, userId);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getBookingById(@PathVariable long bookingId,
                                                  @RequestHeader(SHARER_HEADER) long userId) throws NotFoundException {
@@ -40,16 +55,39 @@ public class BookingController {
     public ResponseEntity<Object> getCurrentUserBookings(@RequestParam(defaultValue = "ALL", required = false) State state,
                                                          @RequestHeader(SHARER_HEADER) long userId,
                                                          @RequestParam(required = false) Integer from,
-                                                         @RequestParam(required = false) Integer size) throws NotFoundException, ValidationException {
-        return bookingClient.getCurrentUserBookings(state, userId, from, size);
+                                                         @RequestParam(required = false) Integer size,
+                                                         @RequestParam(required = false) String cursor) throws NotFoundException, ValidationException {
+        return bookingClient.getCurrentUserBookings(state, userId, from, size, cursor);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCurrentUserBookings(@RequestParam(defaultValue = "ALL", required = false) State state,
+                                                                           @RequestHeader(SHARER_HEADER) long userId) throws IOException {
+        return bookingClient.streamCurrentUserBookings(state, userId);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<Object> getCurrentUserBookingsSummary(@RequestHeader(SHARER_HEADER) long userId) {
+        return bookingClient.getCurrentUserBookingsSummary(userId);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> getOwnerBookings(@RequestParam(defaultValue = "ALL", required = false) State state,
                                                    @RequestHeader(SHARER_HEADER) long ownerId,
                                                    @RequestParam(required = false) Integer from,
-                                                   @RequestParam(required = false) Integer size) throws NotFoundException, ValidationException {
-        return bookingClient.getOwnerBookings(state, ownerId, from, size);
+                                                   @RequestParam(required = false) Integer size,
+                                                   @RequestParam(required = false) String cursor) throws NotFoundException, ValidationException {
+        return bookingClient.getOwnerBookings(state, ownerId, from, size, cursor);
     }
 
+    @GetMapping(path = "/owner", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOwnerBookings(@RequestParam(defaultValue = "ALL", required = false) State state,
+                                                                     @RequestHeader(SHARER_HEADER) long ownerId) throws IOException {
+        return bookingClient.streamOwnerBookings(state, ownerId);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<Object> getOwnerBookingsSummary(@RequestHeader(SHARER_HEADER) long ownerId) {
+        return bookingClient.getOwnerBookingsSummary(ownerId);
+    }
 }
@@ -1,14 +1,28 @@
 package ru.practicum.shareit.client;
 
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 public class BaseClient {
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+            "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade");
+
     protected final RestTemplate rest;
 
     public BaseClient(RestTemplate rest) {
@@ -75,20 +89,73 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    protected ResponseEntity<StreamingResponseBody> stream(String path, @Nullable Long userId, Map<String, Object> parameters) throws IOException {
+        URI uri = rest.getUriTemplateHandler().expand(path, parameters);
+        ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, HttpMethod.GET);
+        request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        if (userId != null) {
+            request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+        }
+
+        ClientHttpResponse response = request.execute();
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getRawStatusCode());
+        if (response.getHeaders().getContentType() != null)
+            responseBuilder.contentType(response.getHeaders().getContentType());
+
+        if (!HttpStatus.Series.SUCCESSFUL.equals(HttpStatus.Series.resolve(response.getRawStatusCode()))) {
+            try (response) {
+                byte[] body = StreamUtils.copyToByteArray(response.getBody());
+                return responseBuilder.body(outputStream -> outputStream.write(body));
+            }
+        }
+
+        return responseBuilder.body(outputStream -> {
+            try (response; InputStream inputStream = response.getBody()) {
+                byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                    outputStream.flush();
+                }
+            }
+        });
+    }
+
+    protected static String withCursor(String path, @Nullable Integer size) {
+        return path + (size == null ? "cursor={cursor}" : "cursor={cursor}&size={size}");
+    }
+
+    protected static Map<String, Object> cursorParameters(String cursor, @Nullable Integer size) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("cursor", cursor);
+        if (size != null)
+            parameters.put("size", size);
+        return parameters;
+    }
+
+    // relays status, headers and body bytes untouched; the body is streamed to the caller and closed after writing
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
 
-        ResponseEntity<Object> shareitServerResponse;
         try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, method);
+            rest.httpEntityCallback(new HttpEntity<>(body, defaultHeaders(userId))).doWithRequest(request);
+            ClientHttpResponse response = request.execute();
+
+            HttpHeaders headers = new HttpHeaders();
+            response.getHeaders().forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.addAll(name, values);
+                }
+            });
+            return ResponseEntity.status(response.getRawStatusCode())
+                    .headers(headers)
+                    .body(new InputStreamResource(response.getBody()));
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on " + method + " request for \"" + uri + "\": " + e.getMessage(), e);
         }
-        return prepareGatewayResponse(shareitServerResponse);
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -100,18 +167,4 @@ public class BaseClient {
         }
         return headers;
     }
-
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
-        }
-
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
-
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
-        }
-
-        return responseBuilder.build();
-    }
-}
\ No newline at end of file
+}
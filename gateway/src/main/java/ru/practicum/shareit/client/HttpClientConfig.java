@@ -0,0 +1,68 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager shareitServerConnectionManager(
+            @Value("${shareit-server.http.max-total}") int maxTotal,
+            @Value("${shareit-server.http.max-per-route}") int maxPerRoute,
+            @Value("${shareit-server.http.validate-after-inactivity}") Duration validateAfterInactivity) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        // every client talks to the same server, so a single route may use the whole pool
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity((int) validateAfterInactivity.toMillis());
+        return connectionManager;
+    }
+
+    @Bean
+    public ClientHttpRequestFactory shareitServerRequestFactory(
+            PoolingHttpClientConnectionManager shareitServerConnectionManager,
+            @Value("${shareit-server.http.connect-timeout}") Duration connectTimeout,
+            @Value("${shareit-server.http.connection-request-timeout}") Duration connectionRequestTimeout,
+            @Value("${shareit-server.http.read-timeout}") Duration readTimeout,
+            @Value("${shareit-server.http.keep-alive}") Duration keepAlive,
+            @Value("${shareit-server.http.idle-timeout}") Duration idleTimeout) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) connectionRequestTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .build();
+
+        // the server does not advertise a keep-alive timeout, so cap reuse below Tomcat's own idle timeout
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return advertised > 0 ? Math.min(advertised, keepAlive.toMillis()) : keepAlive.toMillis();
+        };
+
+        return new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setConnectionManager(shareitServerConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build());
+    }
+
+    @Bean
+    public MeterBinder shareitServerConnectionPoolMetrics(PoolingHttpClientConnectionManager shareitServerConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(shareitServerConnectionManager, "shareit-server");
+    }
+}
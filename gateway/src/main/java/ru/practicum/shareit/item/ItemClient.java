@@ -4,13 +4,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,11 +23,12 @@ public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory shareitServerRequestFactory) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .requestFactory(() -> shareitServerRequestFactory)
                         .build()
         );
     }
@@ -35,15 +41,22 @@ public class ItemClient extends BaseClient {
         return post("", sharerId, itemDto);
     }
 
-    public void deleteItem(long itemId) {
-        delete("/" + itemId);
+    public ResponseEntity<Object> addItems(List<ItemDto> itemDtos, long sharerId) {
+        return post("/batch", sharerId, itemDtos);
     }
 
-    public ResponseEntity<Object> patchItem(long itemId, ItemDto itemDto, long sharerId) {
+    public ResponseEntity<Object> deleteItem(long itemId) {
+        return delete("/" + itemId);
+    }
+
+    public ResponseEntity<Object> patchItem(long itemId, byte[] itemDto, long sharerId) {
         return patch("/" + itemId, sharerId, itemDto);
     }
 
-    public ResponseEntity<Object> findAll(long sharerId, Integer from, Integer size) {
+    public ResponseEntity<Object> findAll(long sharerId, Integer from, Integer size, String cursor) {
+        if (cursor != null)
+            return get(withCursor("?", size), sharerId, cursorParameters(cursor, size));
+
         if (from == null || size == null)
             return get("", sharerId);
 
@@ -55,7 +68,13 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", sharerId, parameters);
     }
 
-    public ResponseEntity<Object> getItemByText(long sharerId, String text, Integer from, Integer size) {
+    public ResponseEntity<Object> getItemByText(long sharerId, String text, Integer from, Integer size, String cursor) {
+        if (cursor != null) {
+            Map<String, Object> parameters = cursorParameters(cursor, size);
+            parameters.put("text", text);
+            return get(withCursor("/search?text={text}&", size), sharerId, parameters);
+        }
+
         if (from == null || size == null)
             return get("/search?text={text}", sharerId, Map.of("text", text));
 
@@ -68,6 +87,30 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", sharerId, parameters);
     }
 
+    public ResponseEntity<StreamingResponseBody> streamAll(long sharerId) throws IOException {
+        return stream("", sharerId, Map.of());
+    }
+
+    public ResponseEntity<StreamingResponseBody> streamItemsByText(long sharerId, String text) throws IOException {
+        return stream("/search?text={text}", sharerId, Map.of("text", text));
+    }
+
+    public ResponseEntity<Object> getAvailableItems(long sharerId, LocalDateTime start, LocalDateTime end,
+                                                    Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("start", start);
+        parameters.put("end", end);
+        if (cursor != null) {
+            parameters.putAll(cursorParameters(cursor, size));
+            return get(withCursor("/available?start={start}&end={end}&", size), sharerId, parameters);
+        }
+
+        if (size == null)
+            return get("/available?start={start}&end={end}", sharerId, parameters);
+
+        parameters.put("size", size);
+        return get("/available?start={start}&end={end}&size={size}", sharerId, parameters);
+    }
 
     public ResponseEntity<Object> createComment(long itemId, CommentDto commentDto, long sharerId) {
         return post("/" + itemId + "/comment", sharerId, commentDto);
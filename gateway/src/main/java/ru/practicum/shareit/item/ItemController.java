@@ -1,14 +1,21 @@
 package ru.practicum.shareit.item;
 
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 @RestController
 @RequestMapping("/items")
@@ -16,6 +23,7 @@ import javax.validation.Valid;
 public class ItemController {
     private final ItemClient itemClient;
     private static final String SHARER_HEADER = "X-Sharer-User-Id";
+    private static final int MAX_BATCH_SIZE = 1000;
 
     @GetMapping("/{itemId}")
     public ResponseEntity<Object> getItem(@PathVariable long itemId,
@@ -29,14 +37,23 @@ public class ItemController {
         return itemClient.addItem(itemDto, sharerId);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> addItems(@RequestBody List<ItemDto> itemDtos,
+                                           @RequestHeader(SHARER_HEADER) long sharerId) throws ValidationException {
+        if (itemDtos.isEmpty() || itemDtos.size() > MAX_BATCH_SIZE)
+            throw new ValidationException("Размер пакета вещей должен быть от 1 до " + MAX_BATCH_SIZE);
+
+        return itemClient.addItems(itemDtos, sharerId);
+    }
+
     @DeleteMapping("/{itemId}")
-    public void deleteItem(@PathVariable long itemId) {
-        itemClient.deleteItem(itemId);
+    public ResponseEntity<Object> deleteItem(@PathVariable long itemId) {
+        return itemClient.deleteItem(itemId);
     }
 
     @PatchMapping("/{itemId}")
     public ResponseEntity<Object> patchItem(@PathVariable long itemId,
-                                            @RequestBody ItemDto itemDto,
+                                            @RequestBody byte[] itemDto,
                                             @RequestHeader(SHARER_HEADER) long sharerId) throws NotFoundException {
         return itemClient.patchItem(itemId, itemDto, sharerId);
     }
@@ -44,16 +61,43 @@ public class ItemController {
     @GetMapping
     public ResponseEntity<Object> findAll(@RequestHeader(SHARER_HEADER) long sharerId,
                                           @RequestParam(required = false) Integer from,
-                                          @RequestParam(required = false) Integer size) throws ValidationException {
-        return itemClient.findAll(sharerId, from, size);
+                                          @RequestParam(required = false) Integer size,
+                                          @RequestParam(required = false) String cursor) throws ValidationException {
+        return itemClient.findAll(sharerId, from, size, cursor);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestHeader(SHARER_HEADER) long sharerId) throws IOException {
+        return itemClient.streamAll(sharerId);
     }
 
     @GetMapping("/search")
     public ResponseEntity<Object> getItemByText(@RequestHeader(SHARER_HEADER) long sharerId,
                                                 @RequestParam String text,
                                                 @RequestParam(required = false) Integer from,
-                                                @RequestParam(required = false) Integer size) throws ValidationException {
-        return itemClient.getItemByText(sharerId, text, from, size);
+                                                @RequestParam(required = false) Integer size,
+                                                @RequestParam(required = false) String cursor) throws ValidationException {
+        return itemClient.getItemByText(sharerId, text, from, size, cursor);
+    }
+
+    @GetMapping(path = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamItemsByText(@RequestHeader(SHARER_HEADER) long sharerId,
+                                                                   @RequestParam String text) throws IOException {
+        return itemClient.streamItemsByText(sharerId, text);
+    }
+
+    @GetMapping("/available")
+    public ResponseEntity<Object> getAvailableItems(@RequestHeader(SHARER_HEADER) long sharerId,
+                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                                                    @RequestParam(required = false) Integer size,
+                                                    @RequestParam(required = false) String cursor) throws ValidationException {
+        if (start.isBefore(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)))
+            throw new ValidationException("Дата начала в прошлом");
+        if (!end.isAfter(start))
+            throw new ValidationException("Дата конца должна быть позже даты начала");
+
+        return itemClient.getAvailableItems(sharerId, start, end, size, cursor);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+@Service
+public class NotificationClient {
+    private static final String API_PREFIX = "/notifications";
+
+    private final HttpClient httpClient;
+    private final URI uri;
+
+    public NotificationClient(@Value("${shareit-server.url}") String serverUrl) {
+        this.httpClient = HttpClient.newHttpClient();
+        this.uri = URI.create(serverUrl + API_PREFIX);
+    }
+
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> subscribe(long userId) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE)
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofPublisher())
+                .thenApply(response -> {
+                    ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+                    response.body().subscribe(new EmitterSubscriber(emitter));
+
+                    ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.statusCode())
+                            .cacheControl(CacheControl.noCache());
+                    response.headers().firstValue(HttpHeaders.CONTENT_TYPE)
+                            .ifPresent(contentType -> responseBuilder.header(HttpHeaders.CONTENT_TYPE, contentType));
+                    return responseBuilder.body(emitter);
+                });
+    }
+
+    // relays upstream chunks as they arrive; no thread is parked while the stream is idle
+    private static class EmitterSubscriber implements Flow.Subscriber<List<ByteBuffer>> {
+        private final ResponseBodyEmitter emitter;
+        private Flow.Subscription subscription;
+
+        EmitterSubscriber(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            emitter.onCompletion(subscription::cancel);
+            emitter.onTimeout(subscription::cancel);
+            emitter.onError(error -> subscription.cancel());
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    emitter.send(bytes, MediaType.APPLICATION_OCTET_STREAM);
+                }
+                subscription.request(1);
+            } catch (IOException | IllegalStateException e) {
+                subscription.cancel();
+                emitter.complete();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            emitter.complete();
+        }
+
+        @Override
+        public void onComplete() {
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.notification;
+
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping(path = "/notifications")
+public class NotificationController {
+    private final NotificationClient notificationClient;
+    private static final String SHARER_HEADER = "X-Sharer-User-Id";
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> subscribe(@RequestHeader(SHARER_HEADER) long userId) {
+        return notificationClient.subscribe(userId);
+    }
+}
@@ -4,7 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
@@ -17,11 +17,12 @@ public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             ClientHttpRequestFactory shareitServerRequestFactory) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .requestFactory(() -> shareitServerRequestFactory)
                         .build()
         );
     }
@@ -30,11 +31,22 @@ public class ItemRequestClient extends BaseClient {
         return post("", userId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> findAllOwnerRequests(long userId) {
-        return get("", userId);
+    public ResponseEntity<Object> findAllOwnerRequests(long userId, Integer from, Integer size) {
+        if (from == null || size == null)
+            return get("", userId);
+
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "size", size
+        );
+
+        return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> findAllRequests(Integer from, Integer size, long userId) {
+    public ResponseEntity<Object> findAllRequests(Integer from, Integer size, String cursor, long userId) {
+        if (cursor != null)
+            return get(withCursor("/all?", size), userId, cursorParameters(cursor, size));
+
         if (from == null || size == null)
             return get("/all", userId);
 
@@ -46,6 +58,15 @@ public class ItemRequestClient extends BaseClient {
         return get("/all?from={from}&size={size}", userId, parameters);
     }
 
+    public ResponseEntity<Object> findMatches(long userId, int from, int size) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "size", size
+        );
+
+        return get("/matches?from={from}&size={size}", userId, parameters);
+    }
+
     public ResponseEntity<Object> getRequestById(long requestId, long userId) {
         return get("/" + requestId, userId);
     }
@@ -23,15 +23,25 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> findAllOwnerRequests(@RequestHeader(SHARER_HEADER) long userId) throws NotFoundException {
-        return itemRequestClient.findAllOwnerRequests(userId);
+    public ResponseEntity<Object> findAllOwnerRequests(@RequestHeader(SHARER_HEADER) long userId,
+                                                       @RequestParam(required = false) Integer from,
+                                                       @RequestParam(required = false) Integer size) throws NotFoundException {
+        return itemRequestClient.findAllOwnerRequests(userId, from, size);
     }
 
     @GetMapping("/all")
     public ResponseEntity<Object> findAllRequests(@RequestParam(required = false) Integer from,
                                                   @RequestParam(required = false) Integer size,
+                                                  @RequestParam(required = false) String cursor,
                                                   @RequestHeader(SHARER_HEADER) long userId) throws ValidationException, NotFoundException {
-        return itemRequestClient.findAllRequests(from, size, userId);
+        return itemRequestClient.findAllRequests(from, size, cursor, userId);
+    }
+
+    @GetMapping("/matches")
+    public ResponseEntity<Object> findMatches(@RequestHeader(SHARER_HEADER) long userId,
+                                              @RequestParam(defaultValue = "0") int from,
+                                              @RequestParam(defaultValue = "20") int size) {
+        return itemRequestClient.findMatches(userId, from, size);
     }
 
     @GetMapping("/{requestId}")
@@ -4,22 +4,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.io.IOException;
+import java.util.Map;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory shareitServerRequestFactory) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .requestFactory(() -> shareitServerRequestFactory)
                         .build()
         );
     }
@@ -32,15 +37,23 @@ public class UserClient extends BaseClient {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> patchUser(long userId, UserDto userDto) {
+    public ResponseEntity<Object> patchUser(long userId, byte[] userDto) {
         return patch("/" + userId, userDto);
     }
 
-    public void deleteUser(long userId) {
-        delete("/" + userId);
+    public ResponseEntity<Object> deleteUser(long userId) {
+        return delete("/" + userId);
     }
 
-    public ResponseEntity<Object> findAll() {
+    // a size without a cursor opens the first cursor page, so the listing stays bounded
+    public ResponseEntity<Object> findAll(Integer size, String cursor) {
+        if (cursor != null || size != null)
+            return get(withCursor("?", size), null, cursorParameters(cursor == null ? "" : cursor, size));
+
         return get("");
     }
+
+    public ResponseEntity<StreamingResponseBody> streamAll() throws IOException {
+        return stream("", null, Map.of());
+    }
 }
@@ -1,13 +1,16 @@
 package ru.practicum.shareit.user;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.exception.InvalidArgumentException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/users")
@@ -27,17 +30,23 @@ public class UserController {
 
     @PatchMapping("/{userId}")
     public ResponseEntity<Object> patchUser(@PathVariable long userId,
-                                            @RequestBody UserDto userDto) throws InvalidArgumentException {
+                                            @RequestBody byte[] userDto) throws InvalidArgumentException {
         return userClient.patchUser(userId, userDto);
     }
 
     @DeleteMapping("/{userId}")
-    public void deleteUser(@PathVariable long userId) {
-        userClient.deleteUser(userId);
+    public ResponseEntity<Object> deleteUser(@PathVariable long userId) {
+        return userClient.deleteUser(userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> findAll() {
-        return userClient.findAll();
+    public ResponseEntity<Object> findAll(@RequestParam(required = false) Integer size,
+                                          @RequestParam(required = false) String cursor) {
+        return userClient.findAll(size, cursor);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() throws IOException {
+        return userClient.streamAll();
     }
 }
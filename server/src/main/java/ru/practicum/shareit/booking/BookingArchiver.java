@@ -0,0 +1,37 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Component
+public class BookingArchiver {
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration archiveAfter;
+    private final int batchSize;
+
+    public BookingArchiver(BookingRepository bookingRepository, PlatformTransactionManager transactionManager,
+                           @Value("${shareit.booking.archive-after}") Duration archiveAfter,
+                           @Value("${shareit.booking.archive-batch-size}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive-interval}",
+            initialDelayString = "${shareit.booking.archive-interval}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        Integer archived;
+        do {
+            archived = transactionTemplate.execute(status -> bookingRepository.archiveFinishedBefore(cutoff, batchSize));
+        } while (archived != null && archived == batchSize);
+    }
+}
@@ -1,7 +1,12 @@
 package ru.practicum.shareit.booking;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -9,6 +14,7 @@ import ru.practicum.shareit.exception.ValidationException;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -30,6 +36,12 @@ public class BookingController {
         return bookingService.patchBooking(bookingId, approved, userId);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingBatchResultDto> patchBookings(@RequestBody List<BookingDecisionDto> decisions,
+                                                     @RequestHeader(SHARER_HEADER) long userId) throws ValidationException {
+        return bookingService.patchBookings(decisions, userId);
+    }
+
     @GetMapping("{bookingId}")
     public BookingDto getBookingById(@PathVariable long bookingId,
                                      @RequestHeader(SHARER_HEADER) long userId) throws NotFoundException {
@@ -44,6 +56,27 @@ public class BookingController {
         return bookingService.getCurrentUserBookings(state, userId, from, size);
     }
 
+    @GetMapping(params = "cursor")
+    public ResponseEntity<List<BookingDto>> getCurrentUserBookingsAfter(@RequestParam(defaultValue = "ALL", required = false) State state,
+                                                                        @RequestHeader(SHARER_HEADER) long userId,
+                                                                        @RequestParam String cursor,
+                                                                        @RequestParam(defaultValue = "20") int size) throws NotFoundException, ValidationException {
+        return bookingService.getCurrentUserBookingsAfter(state, userId, cursor, size).toResponseEntity();
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCurrentUserBookings(@RequestParam(defaultValue = "ALL", required = false) State state,
+                                                                           @RequestHeader(SHARER_HEADER) long userId) throws NotFoundException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookingService.streamCurrentUserBookings(state, userId));
+    }
+
+    @GetMapping("/summary")
+    public Map<State, Long> getCurrentUserBookingsSummary(@RequestHeader(SHARER_HEADER) long userId) throws NotFoundException {
+        return bookingService.getCurrentUserBookingsSummary(userId);
+    }
+
     @GetMapping("/owner")
     public List<BookingDto> getOwnerBookings(@RequestParam(defaultValue = "ALL", required = false) State state,
                                              @RequestHeader(SHARER_HEADER) long ownerId,
@@ -52,4 +85,25 @@ public class BookingController {
         return bookingService.getOwnerBookings(state, ownerId, from, size);
     }
 
+    @GetMapping(path = "/owner", params = "cursor")
+    public ResponseEntity<List<BookingDto>> getOwnerBookingsAfter(@RequestParam(defaultValue = "ALL", required = false) State state,
+                                                                  @RequestHeader(SHARER_HEADER) long ownerId,
+                                                                  @RequestParam String cursor,
+                                                                  @RequestParam(defaultValue = "20") int size) throws NotFoundException, ValidationException {
+        return bookingService.getOwnerBookingsAfter(state, ownerId, cursor, size).toResponseEntity();
+    }
+
+    @GetMapping(path = "/owner", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOwnerBookings(@RequestParam(defaultValue = "ALL", required = false) State state,
+                                                                     @RequestHeader(SHARER_HEADER) long ownerId) throws NotFoundException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookingService.streamOwnerBookings(state, ownerId));
+    }
+
+    @GetMapping("/owner/summary")
+    public Map<State, Long> getOwnerBookingsSummary(@RequestHeader(SHARER_HEADER) long ownerId) throws NotFoundException {
+        return bookingService.getOwnerBookingsSummary(ownerId);
+    }
+
 }
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+// bookings are converted to a partitioned table by db/migration/postgresql/V2__partition_bookings.sql
+@Component
+public class BookingPartitionMaintainer {
+    private static final String POSTGRESQL = "PostgreSQL";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+
+    public BookingPartitionMaintainer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      @Value("${shareit.booking.partition-months-ahead}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${shareit.booking.partition-cron}")
+    public void maintain() {
+        if (!POSTGRESQL.equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName())))
+            return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext('bookings_partitions'))");
+
+            if (!"p".equals(jdbcTemplate.queryForObject(
+                    "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('bookings')", String.class)))
+                return;
+
+            YearMonth month = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++)
+                createMonthPartition(month.plusMonths(i));
+        });
+    }
+
+    private void createMonthPartition(YearMonth month) {
+        String partition = "bookings_active_" + month.format(PARTITION_SUFFIX);
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_tables " +
+                "WHERE schemaname = current_schema() AND tablename = ?)", Boolean.class, partition)))
+            return;
+
+        String from = "'" + month.atDay(1) + " 00:00:00'";
+        String to = "'" + month.plusMonths(1).atDay(1) + " 00:00:00'";
+
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE bookings_active INCLUDING DEFAULTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM bookings_active_default WHERE start_date >= " + from +
+                " AND start_date < " + to + " RETURNING *) INSERT INTO " + partition + " SELECT * FROM moved");
+        jdbcTemplate.execute("ALTER TABLE bookings_active ATTACH PARTITION " + partition +
+                " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+    }
+}
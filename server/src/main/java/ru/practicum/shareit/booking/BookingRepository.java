@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -8,33 +9,37 @@ import ru.practicum.shareit.booking.dto.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    @Query("select b from Booking b where b.booker.id = :bookerId")
-    List<Booking> findBookingsByBookerId(@Param("bookerId") long bookerId);
-
-    @Query("select b from Booking b where b.item.owner.id = :ownerId")
-    List<Booking> findBookingsByItemOwnerId(@Param("ownerId") long ownerId);
-
-    @Query("select b from Booking b where b.id in :bookingIds and b.status = :status")
-    List<Booking> findBookingsByBookingIdsAndStatus(@Param("bookingIds") Iterable<Long> bookingIds,
-                                                    @Param("status") BookingStatus status);
-
-    @Query("select b from Booking b where b.id in :bookingIds")
-    List<Booking> findBookingsByBookingIds(@Param("bookingIds") Iterable<Long> bookingIds);
-
-    @Query("select b from Booking b where b.id in :bookingIds and (b.start <= :now and b.end >= :now)")
-    List<Booking> findBookingsByBookingIdsCurrent(@Param("bookingIds") Iterable<Long> bookingIds,
-                                                  @Param("now") LocalDateTime now);
-
-    @Query("select b from Booking b where b.id in :bookingIds and b.start >= :now")
-    List<Booking> findBookingsByBookingIdsFuture(@Param("bookingIds") Iterable<Long> bookingIds,
-                                                 @Param("now") LocalDateTime now);
-
-    @Query("select b from Booking b where b.id in :bookingIds and b.end <= :now")
-    List<Booking> findBookingsByBookingIdsPast(@Param("bookingIds") Iterable<Long> bookingIds,
-                                               @Param("now") LocalDateTime now);
-
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+    @Query("select count(b) > 0 from Booking b where b.item.id = :itemId and b.id <> :excludedId " +
+            "and b.archived = false and b.status = :status and b.start < :end and b.end > :start")
+    boolean existsOverlapping(@Param("itemId") long itemId,
+                              @Param("excludedId") long excludedId,
+                              @Param("status") BookingStatus status,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end);
+
+    @Query("select b.status from Booking b where b.id = :bookingId")
+    BookingStatus findStatusById(@Param("bookingId") long bookingId);
+
+    @Query("select distinct b.item.id from Booking b where b.id in :ids")
+    List<Long> findItemIdsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker where b.id in :ids")
+    List<Booking> findAllWithItemByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select new ru.practicum.shareit.booking.BookedPeriod(b.item.id, b.start, b.end) from Booking b " +
+            "where b.item.id in :itemIds and b.archived = false and b.status = :status and b.start < :end and b.end > :start")
+    List<BookedPeriod> findPeriodsOverlapping(@Param("itemIds") Collection<Long> itemIds,
+                                              @Param("status") BookingStatus status,
+                                              @Param("start") LocalDateTime start,
+                                              @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(value = "UPDATE bookings SET archived = TRUE, version = version + 1 WHERE id IN " +
+            "(SELECT id FROM bookings WHERE archived = FALSE AND end_date < :cutoff LIMIT :limit)", nativeQuery = true)
+    int archiveFinishedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
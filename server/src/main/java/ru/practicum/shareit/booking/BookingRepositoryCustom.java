@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.State;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.pagination.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface BookingRepositoryCustom {
+    List<Booking> findBookerBookings(long bookerId, State state, LocalDateTime now, Cursor before, int limit);
+
+    List<Booking> findOwnerBookings(long ownerId, State state, LocalDateTime now, Cursor before, int limit);
+
+    List<Booking> findBookerBookings(long bookerId, State state, LocalDateTime now, int offset, Integer limit);
+
+    List<Booking> findOwnerBookings(long ownerId, State state, LocalDateTime now, int offset, Integer limit);
+
+    Stream<Booking> streamBookerBookings(long bookerId, State state, LocalDateTime now);
+
+    Stream<Booking> streamOwnerBookings(long ownerId, State state, LocalDateTime now);
+
+    Map<State, Long> countBookerBookingsByState(long bookerId, LocalDateTime now);
+
+    Map<State, Long> countOwnerBookingsByState(long ownerId, LocalDateTime now);
+}
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingStatus;
+import ru.practicum.shareit.booking.dto.State;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.stream.NdjsonStreamer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> findBookerBookings(long bookerId, State state, LocalDateTime now, Cursor before, int limit) {
+        return findBookings("b.booker.id = :userId", bookerId, state, now, before, limit);
+    }
+
+    @Override
+    public List<Booking> findOwnerBookings(long ownerId, State state, LocalDateTime now, Cursor before, int limit) {
+        return findBookings("i.owner.id = :userId", ownerId, state, now, before, limit);
+    }
+
+    @Override
+    public List<Booking> findBookerBookings(long bookerId, State state, LocalDateTime now, int offset, Integer limit) {
+        return findBookings("b.booker.id = :userId", bookerId, state, now, offset, limit);
+    }
+
+    @Override
+    public List<Booking> findOwnerBookings(long ownerId, State state, LocalDateTime now, int offset, Integer limit) {
+        return findBookings("i.owner.id = :userId", ownerId, state, now, offset, limit);
+    }
+
+    @Override
+    public Stream<Booking> streamBookerBookings(long bookerId, State state, LocalDateTime now) {
+        return streamBookings("b.booker.id = :userId", bookerId, state, now);
+    }
+
+    @Override
+    public Stream<Booking> streamOwnerBookings(long ownerId, State state, LocalDateTime now) {
+        return streamBookings("i.owner.id = :userId", ownerId, state, now);
+    }
+
+    @Override
+    public Map<State, Long> countBookerBookingsByState(long bookerId, LocalDateTime now) {
+        return countBookingsByState("b.booker.id = :userId", bookerId, now);
+    }
+
+    @Override
+    public Map<State, Long> countOwnerBookingsByState(long ownerId, LocalDateTime now) {
+        return countBookingsByState("i.owner.id = :userId", ownerId, now);
+    }
+
+    private Map<State, Long> countBookingsByState(String userCondition, long userId, LocalDateTime now) {
+        Object[] counts = entityManager.createQuery("select count(b), " +
+                        "sum(case when b.archived = false and b.start <= :now and b.end >= :now then 1 else 0 end), " +
+                        "sum(case when b.end <= :now then 1 else 0 end), " +
+                        "sum(case when b.archived = false and b.start >= :now then 1 else 0 end), " +
+                        "sum(case when b.status = :waiting then 1 else 0 end), " +
+                        "sum(case when b.status = :rejected then 1 else 0 end) " +
+                        "from Booking b join b.item i where " + userCondition, Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("now", now)
+                .setParameter("waiting", BookingStatus.WAITING)
+                .setParameter("rejected", BookingStatus.REJECTED)
+                .getSingleResult();
+
+        State[] states = {State.ALL, State.CURRENT, State.PAST, State.FUTURE, State.WAITING, State.REJECTED};
+        Map<State, Long> summary = new EnumMap<>(State.class);
+        for (int i = 0; i < states.length; i++)
+            summary.put(states[i], counts[i] == null ? 0L : ((Number) counts[i]).longValue());
+        return summary;
+    }
+
+    private List<Booking> findBookings(String userCondition, long userId, State state, LocalDateTime now,
+                                       Cursor before, int limit) {
+        return createBookingsQuery(userCondition, userId, state, now, before)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private List<Booking> findBookings(String userCondition, long userId, State state, LocalDateTime now,
+                                       int offset, Integer limit) {
+        TypedQuery<Booking> query = createBookingsQuery(userCondition, userId, state, now, null)
+                .setFirstResult(offset);
+        if (limit != null)
+            query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    private Stream<Booking> streamBookings(String userCondition, long userId, State state, LocalDateTime now) {
+        return createBookingsQuery(userCondition, userId, state, now, null)
+                .setHint("org.hibernate.fetchSize", NdjsonStreamer.FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream();
+    }
+
+    private TypedQuery<Booking> createBookingsQuery(String userCondition, long userId, State state,
+                                                    LocalDateTime now, Cursor before) {
+        StringBuilder jpql = new StringBuilder("select b from Booking b join fetch b.item i join fetch i.owner " +
+                "join fetch b.booker where ")
+                .append(userCondition)
+                .append(stateCondition(state));
+
+        if (before != null)
+            jpql.append(" and (b.start < :start or (b.start = :start and b.id < :id))");
+
+        jpql.append(" order by b.start desc, b.id desc");
+
+        TypedQuery<Booking> query = entityManager.createQuery(jpql.toString(), Booking.class)
+                .setParameter("userId", userId);
+
+        switch (state) {
+            case CURRENT:
+            case PAST:
+            case FUTURE:
+                query.setParameter("now", now);
+                break;
+            case WAITING:
+                query.setParameter("status", BookingStatus.WAITING);
+                break;
+            case REJECTED:
+                query.setParameter("status", BookingStatus.REJECTED);
+                break;
+            default:
+        }
+
+        if (before != null) {
+            query.setParameter("start", before.getKey());
+            query.setParameter("id", before.getId());
+        }
+
+        return query;
+    }
+
+    private String stateCondition(State state) {
+        switch (state) {
+            case CURRENT:
+                return " and b.archived = false and b.start <= :now and b.end >= :now";
+            case PAST:
+                return " and b.end <= :now";
+            case FUTURE:
+                return " and b.archived = false and b.start >= :now";
+            case WAITING:
+            case REJECTED:
+                return " and b.status = :status";
+            default:
+                return "";
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package ru.practicum.shareit.booking;
 
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingStatus;
 import ru.practicum.shareit.booking.dto.State;
@@ -9,22 +14,45 @@ import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemChangedEvent;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.stream.NdjsonStreamer;
+import ru.practicum.shareit.user.UserLookup;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class BookingService {
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private BookingRepository bookingRepository;
-    private UserRepository userRepository;
+    private UserLookup userLookup;
     private ItemRepository itemRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private NdjsonStreamer ndjsonStreamer;
+    private ItemLocks itemLocks;
+    private Outbox outbox;
+    private TransactionTemplate transactionTemplate;
+    private BookingSummaryCache bookingSummaryCache;
 
     public BookingDto createBooking(BookingDto bookingDto, long userId) throws NotFoundException, ValidationException {
         Booking booking = BookingMapper.toBooking(bookingDto);
@@ -42,13 +70,35 @@ public class BookingService {
         if (!item.isAvailable())
             throw new ValidationException("Вещь не доступна");
 
-        User user = userRepository.findById(userId)
+        User user = userLookup.fetch(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователя с таким номером не существует"));
 
         booking.setItem(item);
         booking.setBooker(user);
 
-        return BookingMapper.toBookingDto(bookingRepository.save(booking));
+        // the item row lock keeps the check and the save atomic across instances,
+        // the stripe only keeps requests of this instance from queueing on it
+        Lock lock = itemLocks.get(item.getId());
+        lock.lock();
+        try {
+            BookingDto createdBookingDto = transactionTemplate.execute(status -> {
+                itemRepository.lockById(item.getId());
+                if (bookingRepository.existsOverlapping(item.getId(), 0, BookingStatus.APPROVED,
+                        booking.getStart(), booking.getEnd()))
+                    return null;
+
+                BookingDto savedBookingDto = BookingMapper.toBookingDto(bookingRepository.save(booking));
+                outbox.add(OutboxEventType.BOOKING_CREATED, savedBookingDto.getId(), savedBookingDto);
+                return savedBookingDto;
+            });
+            if (createdBookingDto == null)
+                throw new ValidationException("Вещь уже забронирована на это время");
+
+            bookingSummaryCache.invalidate(userId, item.getOwner().getId());
+            return createdBookingDto;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public BookingDto patchBooking(long bookingId, boolean approved, long userId) throws NotFoundException, ValidationException {
@@ -59,16 +109,71 @@ public class BookingService {
 
         if (userId != item.getOwner().getId()) {
             throw new NotFoundException("Пользователь не владелец вещи");
-        } else if (booking.getStatus() != BookingStatus.WAITING) {
-            throw new ValidationException("Попытка изменения изменненного статуса вещи ");
         }
 
-        if (approved)
-            booking.setStatus(BookingStatus.APPROVED);
-        else
-            booking.setStatus(BookingStatus.REJECTED);
+        BookingDto patchedBookingDto;
+        Lock lock = itemLocks.get(item.getId());
+        lock.lock();
+        try {
+            if (bookingRepository.findStatusById(bookingId) != BookingStatus.WAITING)
+                throw new ValidationException("Попытка изменения изменненного статуса вещи ");
 
-        return BookingMapper.toBookingDto(bookingRepository.save(booking));
+            patchedBookingDto = transactionTemplate.execute(status -> {
+                if (approved) {
+                    itemRepository.lockById(item.getId());
+                    if (bookingRepository.existsOverlapping(item.getId(), bookingId, BookingStatus.APPROVED,
+                            booking.getStart(), booking.getEnd()))
+                        return null;
+                }
+                booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+
+                BookingDto savedBookingDto = BookingMapper.toBookingDto(bookingRepository.save(booking));
+                outbox.add(approved ? OutboxEventType.BOOKING_APPROVED : OutboxEventType.BOOKING_REJECTED,
+                        bookingId, savedBookingDto);
+                return savedBookingDto;
+            });
+            if (patchedBookingDto == null)
+                throw new ValidationException("Вещь уже забронирована на это время");
+        } finally {
+            lock.unlock();
+        }
+
+        eventPublisher.publishEvent(new ItemChangedEvent(item.getId()));
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(patchedBookingDto));
+        return patchedBookingDto;
+    }
+
+    public List<BookingBatchResultDto> patchBookings(List<BookingDecisionDto> decisions,
+                                                     long userId) throws ValidationException {
+        if (decisions.isEmpty() || decisions.size() > MAX_BATCH_SIZE)
+            throw new ValidationException("Размер пакета решений должен быть от 1 до " + MAX_BATCH_SIZE);
+
+        Set<Long> bookingIds = decisions.stream()
+                .filter(Objects::nonNull)
+                .map(BookingDecisionDto::getBookingId)
+                .collect(Collectors.toSet());
+        List<Lock> locks = bookingIds.isEmpty() ? List.of()
+                : itemLocks.getAll(bookingRepository.findItemIdsByIds(bookingIds));
+
+        List<BookingBatchResultDto> results;
+        locks.forEach(Lock::lock);
+        try {
+            results = transactionTemplate.execute(status -> applyDecisions(decisions, bookingIds, userId));
+        } finally {
+            List<Lock> acquired = new ArrayList<>(locks);
+            Collections.reverse(acquired);
+            acquired.forEach(Lock::unlock);
+        }
+
+        Objects.requireNonNull(results).stream()
+                .filter(result -> result.getBooking() != null)
+                .map(result -> result.getBooking().getItemId())
+                .distinct()
+                .forEach(itemId -> eventPublisher.publishEvent(new ItemChangedEvent(itemId)));
+        results.stream()
+                .filter(result -> result.getBooking() != null)
+                .forEach(result -> eventPublisher.publishEvent(new BookingStatusChangedEvent(result.getBooking())));
+        return results;
     }
 
     public BookingDto getBookingById(long bookingId, long userId) throws NotFoundException {
@@ -84,58 +189,202 @@ public class BookingService {
 
     public List<BookingDto> getCurrentUserBookings(State state, long userId,
                                                    Integer from, Integer size) throws NotFoundException, ValidationException {
-        userRepository.findById(userId)
+        userLookup.find(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователя с таким номером не существует"));
 
-        List<Long> bookingIds = bookingRepository.findBookingsByBookerId(userId).stream().map(Booking::getId)
-                .collect(Collectors.toList());
+        validatePagination(from, size);
 
-        return BookingMapper.toBookingDtos(getBookingsByState(bookingIds, state, from, size));
+        List<Booking> bookings;
+        if (from == null || size == null)
+            bookings = bookingRepository.findBookerBookings(userId, state, LocalDateTime.now(), 0, null);
+        else
+            bookings = bookingRepository.findBookerBookings(userId, state, LocalDateTime.now(), from, size);
+
+        return BookingMapper.toBookingDtos(bookings);
     }
 
     public List<BookingDto> getOwnerBookings(State state, long ownerId,
                                              Integer from, Integer size) throws NotFoundException, ValidationException {
-        userRepository.findById(ownerId)
+        userLookup.find(ownerId)
                 .orElseThrow(() -> new NotFoundException("Владельца вещи с таким номером не существует"));
 
-        List<Long> bookingIds = bookingRepository.findBookingsByItemOwnerId(ownerId).stream().map(Booking::getId)
-                .collect(Collectors.toList());
+        validatePagination(from, size);
 
-        return BookingMapper.toBookingDtos(getBookingsByState(bookingIds, state, from, size));
+        List<Booking> bookings;
+        if (from == null || size == null)
+            bookings = bookingRepository.findOwnerBookings(ownerId, state, LocalDateTime.now(), 0, null);
+        else
+            bookings = bookingRepository.findOwnerBookings(ownerId, state, LocalDateTime.now(), from, size);
+
+        return BookingMapper.toBookingDtos(bookings);
     }
 
-    private List<Booking> getBookingsByState(List<Long> bookingIds, State state,
-                                             Integer from, Integer size) throws ValidationException {
+    public CursorPage<BookingDto> getCurrentUserBookingsAfter(State state, long userId,
+                                                              String cursor, int size) throws NotFoundException, ValidationException {
+        userLookup.find(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователя с таким номером не существует"));
 
-        if (from != null && from < 0 || size != null && size < 1)
-            throw new ValidationException("Ошибка пагинации");
+        Cursor before = decodeBookingCursor(cursor, size);
+        List<Booking> bookings = bookingRepository.findBookerBookings(userId, state, LocalDateTime.now(),
+                before, size + 1);
+
+        return CursorPage.of(bookings, size, this::encodeBookingCursor, BookingMapper::toBookingDtos);
+    }
+
+    public CursorPage<BookingDto> getOwnerBookingsAfter(State state, long ownerId,
+                                                        String cursor, int size) throws NotFoundException, ValidationException {
+        userLookup.find(ownerId)
+                .orElseThrow(() -> new NotFoundException("Владельца вещи с таким номером не существует"));
+
+        Cursor before = decodeBookingCursor(cursor, size);
+        List<Booking> bookings = bookingRepository.findOwnerBookings(ownerId, state, LocalDateTime.now(),
+                before, size + 1);
+
+        return CursorPage.of(bookings, size, this::encodeBookingCursor, BookingMapper::toBookingDtos);
+    }
+
+    public StreamingResponseBody streamCurrentUserBookings(State state, long userId) throws NotFoundException {
+        userLookup.find(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователя с таким номером не существует"));
 
-        List<Booking> bookings;
         LocalDateTime now = LocalDateTime.now();
+        return ndjsonStreamer.stream(() -> bookingRepository.streamBookerBookings(userId, state, now),
+                BookingMapper::toBookingDtos);
+    }
 
-        switch (state) {
-            case CURRENT:
-                bookings = bookingRepository.findBookingsByBookingIdsCurrent(bookingIds, now);
-                break;
-            case PAST:
-                bookings = bookingRepository.findBookingsByBookingIdsPast(bookingIds, now);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findBookingsByBookingIdsFuture(bookingIds, now);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findBookingsByBookingIdsAndStatus(bookingIds, BookingStatus.WAITING);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findBookingsByBookingIdsAndStatus(bookingIds, BookingStatus.REJECTED);
-                break;
-            default:
-                bookings = bookingRepository.findBookingsByBookingIds(bookingIds);
+    public StreamingResponseBody streamOwnerBookings(State state, long ownerId) throws NotFoundException {
+        userLookup.find(ownerId)
+                .orElseThrow(() -> new NotFoundException("Владельца вещи с таким номером не существует"));
+
+        LocalDateTime now = LocalDateTime.now();
+        return ndjsonStreamer.stream(() -> bookingRepository.streamOwnerBookings(ownerId, state, now),
+                BookingMapper::toBookingDtos);
+    }
+
+    public Map<State, Long> getCurrentUserBookingsSummary(long userId) throws NotFoundException {
+        userLookup.find(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователя с таким номером не существует"));
+
+        return bookingSummaryCache.getBookerSummary(userId,
+                id -> bookingRepository.countBookerBookingsByState(id, LocalDateTime.now()));
+    }
+
+    public Map<State, Long> getOwnerBookingsSummary(long ownerId) throws NotFoundException {
+        userLookup.find(ownerId)
+                .orElseThrow(() -> new NotFoundException("Владельца вещи с таким номером не существует"));
+
+        return bookingSummaryCache.getOwnerSummary(ownerId,
+                id -> bookingRepository.countOwnerBookingsByState(id, LocalDateTime.now()));
+    }
+
+    private List<BookingBatchResultDto> applyDecisions(List<BookingDecisionDto> decisions, Set<Long> bookingIds,
+                                                       long userId) {
+        Map<Long, Booking> bookingsById = bookingIds.isEmpty() ? Map.of() : bookingRepository
+                .findAllWithItemByIds(bookingIds)
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        List<BookingBatchResultDto> results = new ArrayList<>(decisions.size());
+        List<Booking> approvals = new ArrayList<>();
+        Set<Long> decidedIds = new HashSet<>();
+        for (BookingDecisionDto decision : decisions) {
+            String error = validateDecision(decision, bookingsById, userId, decidedIds);
+            results.add(new BookingBatchResultDto(decision == null ? 0 : decision.getBookingId(), null, error));
+            if (error == null && decision.getApproved())
+                approvals.add(bookingsById.get(decision.getBookingId()));
         }
 
-        if (from == null || size == null)
-            return bookings.stream().sorted(Comparator.comparing(Booking::getStart).reversed()).collect(Collectors.toList());
+        if (!approvals.isEmpty())
+            itemRepository.lockAllByIds(approvals.stream()
+                    .map(booking -> booking.getItem().getId())
+                    .collect(Collectors.toCollection(TreeSet::new)));
+        Map<Long, List<BookedPeriod>> approvedPeriods = findApprovedPeriods(approvals);
+        List<Booking> changed = new ArrayList<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            BookingBatchResultDto result = results.get(i);
+            if (result.getError() != null)
+                continue;
+
+            Booking booking = bookingsById.get(result.getBookingId());
+            if (decisions.get(i).getApproved()) {
+                List<BookedPeriod> periods = approvedPeriods.computeIfAbsent(booking.getItem().getId(),
+                        itemId -> new ArrayList<>());
+                if (periods.stream().anyMatch(period -> period.overlaps(booking.getStart(), booking.getEnd()))) {
+                    result.setError("Вещь уже забронирована на это время");
+                    continue;
+                }
+                periods.add(new BookedPeriod(booking.getItem().getId(), booking.getStart(), booking.getEnd()));
+                booking.setStatus(BookingStatus.APPROVED);
+            } else {
+                booking.setStatus(BookingStatus.REJECTED);
+            }
+            changed.add(booking);
+        }
+
+        Map<Long, Booking> savedById = bookingRepository.saveAll(changed).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        for (BookingBatchResultDto result : results) {
+            Booking savedBooking = savedById.get(result.getBookingId());
+            if (result.getError() != null || savedBooking == null)
+                continue;
+
+            BookingDto savedBookingDto = BookingMapper.toBookingDto(savedBooking);
+            result.setBooking(savedBookingDto);
+            outbox.add(savedBooking.getStatus() == BookingStatus.APPROVED ? OutboxEventType.BOOKING_APPROVED
+                    : OutboxEventType.BOOKING_REJECTED, savedBooking.getId(), savedBookingDto);
+        }
+
+        return results;
+    }
+
+    private String validateDecision(BookingDecisionDto decision, Map<Long, Booking> bookingsById, long userId,
+                                    Set<Long> decidedIds) {
+        if (decision == null || decision.getApproved() == null)
+            return "Некорректное решение по букингу";
+        if (!decidedIds.add(decision.getBookingId()))
+            return "Решение по букингу уже есть в пакете";
+
+        Booking booking = bookingsById.get(decision.getBookingId());
+        if (booking == null)
+            return "Букинга с таким номером не существует";
+        if (booking.getItem().getOwner().getId() != userId)
+            return "Пользователь не владелец вещи";
+        if (booking.getStatus() != BookingStatus.WAITING)
+            return "Попытка изменения изменненного статуса вещи";
+        return null;
+    }
+
+    private Map<Long, List<BookedPeriod>> findApprovedPeriods(List<Booking> approvals) {
+        if (approvals.isEmpty())
+            return new HashMap<>();
+
+        Set<Long> itemIds = approvals.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        LocalDateTime start = Collections.min(approvals.stream().map(Booking::getStart).collect(Collectors.toList()));
+        LocalDateTime end = Collections.max(approvals.stream().map(Booking::getEnd).collect(Collectors.toList()));
+
+        return bookingRepository.findPeriodsOverlapping(itemIds, BookingStatus.APPROVED, start, end).stream()
+                .collect(Collectors.groupingBy(BookedPeriod::getItemId, HashMap::new,
+                        Collectors.toCollection(ArrayList::new)));
+    }
+
+    private Cursor decodeBookingCursor(String cursor, int size) throws ValidationException {
+        if (size < 1)
+            throw new ValidationException("Ошибка пагинации");
+
+        Cursor before = Cursor.decode(cursor);
+        if (before != null && before.getKey() == null)
+            throw new ValidationException("Некорректный курсор пагинации");
+        return before;
+    }
 
-        return bookings.stream().sorted(Comparator.comparing(Booking::getStart).reversed()).skip(from).limit(size).collect(Collectors.toList());
+    private String encodeBookingCursor(Booking booking) {
+        return Cursor.encode(booking.getStart(), booking.getId());
+    }
+
+    private void validatePagination(Integer from, Integer size) throws ValidationException {
+        if (from != null && from < 0 || size != null && size < 1)
+            throw new ValidationException("Ошибка пагинации");
     }
 }
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+@Data
+@AllArgsConstructor
+public class BookingStatusChangedEvent {
+    private BookingDto booking;
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.State;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// CURRENT/PAST/FUTURE move with the clock, so entries also expire after a short ttl
+@Component
+public class BookingSummaryCache {
+    private final Cache<SummaryKey, Map<State, Long>> cache;
+
+    public BookingSummaryCache(@Value("${shareit.cache.booking-summaries.maximum-size}") long maximumSize,
+                               @Value("${shareit.cache.booking-summaries.expire-after-write}") Duration expireAfterWrite,
+                               MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "booking-summaries");
+    }
+
+    public Map<State, Long> getBookerSummary(long bookerId, Function<Long, Map<State, Long>> loader) {
+        return get(new SummaryKey(bookerId, false), loader);
+    }
+
+    public Map<State, Long> getOwnerSummary(long ownerId, Function<Long, Map<State, Long>> loader) {
+        return get(new SummaryKey(ownerId, true), loader);
+    }
+
+    public void invalidate(long bookerId, long ownerId) {
+        cache.invalidate(new SummaryKey(bookerId, false));
+        cache.invalidate(new SummaryKey(ownerId, true));
+    }
+
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        invalidate(event.getBooking().getBookerId(), event.getBooking().getItem().getOwner().getId());
+    }
+
+    private Map<State, Long> get(SummaryKey key, Function<Long, Map<State, Long>> loader) {
+        return copy(cache.get(key, summaryKey -> copy(loader.apply(summaryKey.getUserId()))));
+    }
+
+    private static Map<State, Long> copy(Map<State, Long> summary) {
+        Map<State, Long> copy = new EnumMap<>(State.class);
+        copy.putAll(summary);
+        return copy;
+    }
+
+    @Data
+    private static class SummaryKey {
+        private final long userId;
+        private final boolean owner;
+    }
+}
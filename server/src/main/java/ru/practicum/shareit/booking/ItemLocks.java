@@ -0,0 +1,39 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+@Component
+public class ItemLocks {
+    private final Lock[] stripes;
+
+    public ItemLocks(@Value("${shareit.booking.lock-stripes}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new Lock[size];
+        for (int i = 0; i < size; i++)
+            stripes[i] = new ReentrantLock();
+    }
+
+    public Lock get(long itemId) {
+        return stripes[stripeIndex(itemId)];
+    }
+
+    public List<Lock> getAll(Collection<Long> itemIds) {
+        return itemIds.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .mapToObj(index -> stripes[index])
+                .collect(Collectors.toList());
+    }
+
+    private int stripeIndex(long itemId) {
+        return Long.hashCode(itemId) & (stripes.length - 1);
+    }
+}
@@ -39,6 +39,13 @@ public class Booking {
     @Column(name = "status")
     private BookingStatus status = BookingStatus.WAITING;
 
+    @Version
+    @Column(name = "version")
+    private long version;
+
+    @Column(name = "archived")
+    private boolean archived;
+
     public Booking(long id, LocalDateTime start, LocalDateTime end) {
         this.id = id;
         this.start = start;
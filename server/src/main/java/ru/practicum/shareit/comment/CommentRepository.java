@@ -4,10 +4,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Query("select c from Comment c where c.item.id = :itemId")
     Optional<List<Comment>> findAllCommentsByItemId(@Param("itemId") long itemId);
+
+    @Query("select c from Comment c join fetch c.item i join fetch c.author where i.id in :itemIds")
+    List<Comment> findAllCommentsByItemIds(@Param("itemIds") Collection<Long> itemIds);
 }
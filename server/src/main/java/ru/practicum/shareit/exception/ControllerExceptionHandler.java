@@ -3,6 +3,7 @@ package ru.practicum.shareit.exception;
 import org.springframework.core.convert.ConversionFailedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -22,11 +23,17 @@ public class ControllerExceptionHandler {
     }
 
     @ExceptionHandler
-    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    @ResponseStatus(HttpStatus.CONFLICT)
     public Exception handleInvalidArgumentException(InvalidArgumentException e) {
         return new Exception("error", e);
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Exception handleOptimisticLockingFailureException(ObjectOptimisticLockingFailureException e) {
+        return new Exception("Данные были изменены другим запросом, повторите попытку");
+    }
+
     @ExceptionHandler
     public ResponseEntity<UnsupportedStatusException> handleUnsupportedStatusException(ConversionFailedException e) {
         return new ResponseEntity<>(
@@ -1,13 +1,19 @@
 package ru.practicum.shareit.item;
 
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -29,6 +35,12 @@ public class ItemController {
         return itemService.addItem(itemDto, sharerId);
     }
 
+    @PostMapping("/batch")
+    public List<ItemBatchResultDto> addItems(@RequestBody List<ItemDto> itemDtos,
+                                             @RequestHeader(SHARER_HEADER) long sharerId) throws NotFoundException, ValidationException {
+        return itemService.addItems(itemDtos, sharerId);
+    }
+
     @DeleteMapping("/{itemId}")
     public void deleteItem(@PathVariable long itemId) {
         itemService.deleteItem(itemId);
@@ -48,6 +60,20 @@ public class ItemController {
         return itemService.findAll(sharerId, from, size);
     }
 
+    @GetMapping(params = "cursor")
+    public ResponseEntity<List<ItemDto>> findAllAfter(@RequestHeader(SHARER_HEADER) long sharerId,
+                                                      @RequestParam String cursor,
+                                                      @RequestParam(defaultValue = "20") int size) throws ValidationException {
+        return itemService.findAllAfter(sharerId, cursor, size).toResponseEntity();
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestHeader(SHARER_HEADER) long sharerId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(itemService.streamAll(sharerId));
+    }
+
     @GetMapping("/search")
     public List<ItemDto> getItemByText(@RequestParam String text,
                                        @RequestParam(required = false) Integer from,
@@ -55,6 +81,28 @@ public class ItemController {
         return itemService.getItemByText(text, from, size);
     }
 
+    @GetMapping(path = "/search", params = "cursor")
+    public ResponseEntity<List<ItemDto>> getItemByTextAfter(@RequestParam String text,
+                                                            @RequestParam String cursor,
+                                                            @RequestParam(defaultValue = "20") int size) throws ValidationException {
+        return itemService.getItemByTextAfter(text, cursor, size).toResponseEntity();
+    }
+
+    @GetMapping(path = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamItemsByText(@RequestParam String text) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(itemService.streamItemsByText(text));
+    }
+
+    @GetMapping("/available")
+    public ResponseEntity<List<ItemDto>> getAvailableItems(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "20") int size) throws ValidationException {
+        return itemService.getAvailableItems(start, end, cursor, size).toResponseEntity();
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto createComment(@PathVariable long itemId,
                                     @RequestBody @Valid CommentDto commentDto,
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+@Data
+@AllArgsConstructor
+public class ItemCreatedEvent {
+    private ItemDto item;
+    private long requesterId;
+}
@@ -3,36 +3,111 @@ package ru.practicum.shareit.item;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.stream.NdjsonStreamer;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
     @Query("select i from Item i where i.owner.id = :ownerId")
     List<Item> findAllByOwnerId(@Param("ownerId") long ownerId);
 
-    @Query("select b from Booking b where b.item.id = :itemId and b.start >= :now order by b.start")
-    Optional<List<Booking>> findNextBookingByItemId(@Param("itemId") long itemId,
-                                                    @Param("now") LocalDateTime now);
-
-    @Query("select b from Booking b where b.item.id = :itemId and b.start <= :now order by b.start")
-    Optional<List<Booking>> findLastBookingByItemId(@Param("itemId") long itemId,
-                                                    @Param("now") LocalDateTime now);
+    @Query("select b from Booking b join fetch b.item i join fetch b.booker " +
+            "where i.id in :itemIds and b.status = :status " +
+            "and (b.start = (select max(l.start) from Booking l " +
+            "where l.item = i and l.status = :status and l.start <= :now) " +
+            "or b.start = (select min(n.start) from Booking n " +
+            "where n.item = i and n.status = :status and n.start > :now)) " +
+            "and b.id = (select max(t.id) from Booking t " +
+            "where t.item = i and t.status = :status and t.start = b.start)")
+    List<Booking> findLastAndNextBookingsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                   @Param("status") BookingStatus status,
+                                                   @Param("now") LocalDateTime now);
 
     @Query("select b from Booking b where b.item.id = :itemId and b.booker.id = :bookerId order by b.start asc")
     Optional<List<Booking>> findBookingByItemIdAndBookerId(@Param("itemId") long itemId,
                                                            @Param("bookerId") long bookerId);
 
+    // row locks that serialise booking checks of an item across server instances
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = :itemId")
+    Optional<Item> lockById(@Param("itemId") long itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id in :itemIds order by i.id")
+    List<Item> lockAllByIds(@Param("itemIds") Collection<Long> itemIds);
+
     @Query("select r from ItemRequest r where r.id = :requestId")
     Optional<ItemRequest> findRequestById(@Param("requestId") long requestId);
 
+    @Query("select r from ItemRequest r where r.id in :requestIds")
+    List<ItemRequest> findRequestsByIds(@Param("requestIds") Collection<Long> requestIds);
+
     Page<Item> findAllByOwnerId(long ownerId, Pageable pageable);
+
+    @Query("select i from Item i where i.available = true " +
+            "and (lower(i.name) like lower(concat('%', :text, '%')) escape '\\' " +
+            "or lower(i.description) like lower(concat('%', :text, '%')) escape '\\') " +
+            "order by i.id")
+    List<Item> searchAvailableByText(@Param("text") String text);
+
+    @Query("select i from Item i where i.available = true " +
+            "and (lower(i.name) like lower(concat('%', :text, '%')) escape '\\' " +
+            "or lower(i.description) like lower(concat('%', :text, '%')) escape '\\') " +
+            "order by i.id")
+    Page<Item> searchAvailableByText(@Param("text") String text, Pageable pageable);
+
+    @Query("select i from Item i where i.owner.id = :ownerId and i.id > :afterId order by i.id")
+    List<Item> findAllByOwnerIdAfter(@Param("ownerId") long ownerId,
+                                     @Param("afterId") long afterId,
+                                     Pageable pageable);
+
+    @Query("select i from Item i where i.available = true and i.id > :afterId " +
+            "and (lower(i.name) like lower(concat('%', :text, '%')) escape '\\' " +
+            "or lower(i.description) like lower(concat('%', :text, '%')) escape '\\') " +
+            "order by i.id")
+    List<Item> searchAvailableByTextAfter(@Param("text") String text,
+                                         @Param("afterId") long afterId,
+                                         Pageable pageable);
+
+    @Query("select i from Item i where i.available = true and i.id > :afterId " +
+            "and not exists (select b.id from Booking b where b.item = i and b.archived = false " +
+            "and b.status = :status and b.start < :end and b.end > :start) " +
+            "order by i.id")
+    List<Item> findFreeAfter(@Param("afterId") long afterId,
+                             @Param("status") BookingStatus status,
+                             @Param("start") LocalDateTime start,
+                             @Param("end") LocalDateTime end,
+                             Pageable pageable);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "" + NdjsonStreamer.FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select i from Item i join fetch i.owner left join fetch i.request r left join fetch r.requester " +
+            "where i.owner.id = :ownerId order by i.id")
+    Stream<Item> streamAllByOwnerId(@Param("ownerId") long ownerId);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "" + NdjsonStreamer.FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select i from Item i join fetch i.owner left join fetch i.request r left join fetch r.requester " +
+            "where i.available = true " +
+            "and (lower(i.name) like lower(concat('%', :text, '%')) escape '\\' " +
+            "or lower(i.description) like lower(concat('%', :text, '%')) escape '\\') " +
+            "order by i.id")
+    Stream<Item> streamAvailableByText(@Param("text") String text);
 }
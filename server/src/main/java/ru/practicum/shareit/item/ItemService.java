@@ -1,8 +1,11 @@
 package ru.practicum.shareit.item;
 
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookingStatus;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
@@ -12,56 +15,147 @@ import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.mapper.CommentMapper;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.request.RequestAnsweredEvent;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.stream.NdjsonStreamer;
+import ru.practicum.shareit.user.UserLookup;
 import ru.practicum.shareit.user.model.User;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class ItemService {
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final ItemRepository itemRepository;
-    private final UserRepository userRepository;
+    private final UserLookup userLookup;
     private final CommentRepository commentRepository;
+    private final ItemViewCache itemViewCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final Validator validator;
+    private final Outbox outbox;
+    private final TransactionTemplate transactionTemplate;
 
     public ItemDto getItem(long itemId, long userId) throws NotFoundException {
+        ItemDto itemDto = itemViewCache.get(itemId, this::loadItemView)
+                .orElseThrow(() -> new NotFoundException("Вещи с таким номером не существует"));
 
+        if (userId != itemDto.getOwner().getId()) {
+            itemDto.setNextBooking(null);
+            itemDto.setLastBooking(null);
+        }
 
-        ItemDto itemDto = ItemMapper.toItemDto(itemRepository.findById(itemId)
-                .orElseThrow(() -> new NotFoundException("Вещи с таким номером не существует")));
-
-        if (userId == itemDto.getOwner().getId())
-            setBookings(itemId, itemDto);
-
-        itemDto.setComments(CommentMapper.toCommentDtos(commentRepository.findAllCommentsByItemId(itemId)
-                .orElse(new ArrayList<>())));
         return itemDto;
     }
 
     public ItemDto addItem(ItemDto itemDto, long sharerId) throws NotFoundException {
         Item item = ItemMapper.toItem(itemDto);
 
-        User owner = userRepository.findById(sharerId)
+        User owner = userLookup.fetch(sharerId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
         item.setOwner(owner);
 
         if (itemDto.getRequestId() != 0)
             item.setRequest(itemRepository.findRequestById(itemDto.getRequestId()).orElseThrow(() -> new NotFoundException("Запрос не найден")));
 
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        ItemDto createdItemDto = transactionTemplate.execute(status -> {
+            ItemDto savedItemDto = ItemMapper.toItemDto(itemRepository.save(item));
+            outbox.add(OutboxEventType.ITEM_CREATED, savedItemDto.getId(), savedItemDto);
+            return savedItemDto;
+        });
+        if (itemDto.getRequestId() != 0)
+            eventPublisher.publishEvent(new RequestAnsweredEvent(itemDto.getRequestId()));
+        eventPublisher.publishEvent(new ItemCreatedEvent(createdItemDto,
+                item.getRequest() == null ? 0 : item.getRequest().getRequester().getId()));
+        return createdItemDto;
+    }
+
+    public List<ItemBatchResultDto> addItems(List<ItemDto> itemDtos, long sharerId) throws NotFoundException, ValidationException {
+        if (itemDtos.isEmpty() || itemDtos.size() > MAX_BATCH_SIZE)
+            throw new ValidationException("Размер пакета вещей должен быть от 1 до " + MAX_BATCH_SIZE);
+
+        User owner = userLookup.fetch(sharerId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        Set<Long> requestIds = itemDtos.stream()
+                .filter(itemDto -> itemDto != null && itemDto.getRequestId() != 0)
+                .map(ItemDto::getRequestId)
+                .collect(Collectors.toSet());
+        Map<Long, ItemRequest> requestsById = requestIds.isEmpty() ? Map.of() : itemRepository
+                .findRequestsByIds(requestIds)
+                .stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+
+        List<ItemBatchResultDto> results = new ArrayList<>(itemDtos.size());
+        List<ItemBatchResultDto> createdResults = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+
+        for (int i = 0; i < itemDtos.size(); i++) {
+            ItemDto itemDto = itemDtos.get(i);
+            ItemBatchResultDto result = new ItemBatchResultDto(i, null, validateBatchItem(itemDto, requestsById));
+            results.add(result);
+            if (result.getError() != null)
+                continue;
+
+            Item item = ItemMapper.toItem(itemDto);
+            item.setId(0);
+            item.setOwner(owner);
+            if (itemDto.getRequestId() != 0)
+                item.setRequest(requestsById.get(itemDto.getRequestId()));
+
+            items.add(item);
+            createdResults.add(result);
+        }
+
+        if (!items.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Item> savedItems = itemRepository.saveAll(items);
+                for (int i = 0; i < savedItems.size(); i++) {
+                    ItemDto createdItemDto = ItemMapper.toItemDto(savedItems.get(i));
+                    createdResults.get(i).setItem(createdItemDto);
+                    outbox.add(OutboxEventType.ITEM_CREATED, createdItemDto.getId(), createdItemDto);
+                }
+            });
+            createdResults.stream()
+                    .map(result -> result.getItem().getRequestId())
+                    .filter(requestId -> requestId != 0)
+                    .distinct()
+                    .forEach(requestId -> eventPublisher.publishEvent(new RequestAnsweredEvent(requestId)));
+            createdResults.forEach(result -> {
+                ItemRequest request = requestsById.get(result.getItem().getRequestId());
+                eventPublisher.publishEvent(new ItemCreatedEvent(result.getItem(),
+                        request == null ? 0 : request.getRequester().getId()));
+            });
+        }
+
+        return results;
     }
 
     public ItemDto patchItem(long itemId, ItemDto itemDto, long sharerId) throws NotFoundException {
         Item itemToPatch = itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Вещь с таким номером не найдена"));
-        if (!userRepository.existsById(sharerId))
+        if (!userLookup.exists(sharerId))
             throw new NotFoundException("Пользователь не найден");
         if (itemToPatch.getOwner().getId() != sharerId)
             throw new NotFoundException("Использован другой пользователь");
@@ -73,11 +167,21 @@ public class ItemService {
         if (itemDto.getAvailable() != null)
             itemToPatch.setAvailable(itemDto.getAvailable());
 
-        return ItemMapper.toItemDto(itemRepository.save(itemToPatch));
+        ItemDto patchedItemDto = transactionTemplate.execute(status -> {
+            ItemDto savedItemDto = ItemMapper.toItemDto(itemRepository.save(itemToPatch));
+            outbox.add(OutboxEventType.ITEM_UPDATED, itemId, savedItemDto);
+            return savedItemDto;
+        });
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+        return patchedItemDto;
     }
 
     public void deleteItem(long itemId) {
-        itemRepository.deleteById(itemId);
+        transactionTemplate.executeWithoutResult(status -> {
+            itemRepository.deleteById(itemId);
+            outbox.add(OutboxEventType.ITEM_DELETED, itemId, Map.of("id", itemId));
+        });
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
     }
 
     public List<ItemDto> findAll(long sharerId, Integer from, Integer size) throws ValidationException {
@@ -92,21 +196,27 @@ public class ItemService {
             items = itemRepository.findAllByOwnerId(sharerId, PageRequest.of(from, size)).getContent();
 
         List<ItemDto> itemDtos = ItemMapper.toItemDtos(items);
-        List<CommentDto> commentDtos = CommentMapper.toCommentDtos(commentRepository.findAll());
-
-        for (ItemDto itemDto : itemDtos) {
-            setBookings(itemDto.getId(), itemDto);
-            for (CommentDto commentDto : commentDtos) {
-                if (commentDto.getItem().getId() == itemDto.getId())
-                    itemDto.getComments().add(commentDto);
-            }
-        }
+        setBookings(itemDtos);
+        setComments(itemDtos);
 
         return itemDtos.stream()
                 .sorted(Comparator.comparing(ItemDto::getId))
                 .collect(Collectors.toList());
     }
 
+    public CursorPage<ItemDto> findAllAfter(long sharerId, String cursor, int size) throws ValidationException {
+        if (size < 1)
+            throw new ValidationException("Ошибка пагинации");
+
+        List<Item> items = itemRepository.findAllByOwnerIdAfter(sharerId, afterId(cursor), PageRequest.of(0, size + 1));
+
+        return CursorPage.of(items, size, item -> Cursor.encode(item.getId()), this::toOwnerItemDtos);
+    }
+
+    public StreamingResponseBody streamAll(long sharerId) {
+        return ndjsonStreamer.stream(() -> itemRepository.streamAllByOwnerId(sharerId), this::toOwnerItemDtos);
+    }
+
     public List<ItemDto> getItemByText(String text, Integer from, Integer size) throws ValidationException {
         if (text.equals(""))
             return new ArrayList<>();
@@ -114,16 +224,51 @@ public class ItemService {
         if (from != null && from < 0 || size != null && size < 1)
             throw new ValidationException("Ошибка пагинации");
 
+        String pattern = escapeLikePattern(text);
+
         List<Item> items;
         if (from == null || size == null)
-            items = itemRepository.findAll();
+            items = itemRepository.searchAvailableByText(pattern);
         else
-            items = itemRepository.findAll(PageRequest.of(from, size)).getContent();
+            items = itemRepository.searchAvailableByText(pattern, PageRequest.of(from, size)).getContent();
 
-        return ItemMapper.toItemDtos(items)
-                .stream()
-                .filter(i -> i.getDescription().toLowerCase().contains(text.toLowerCase()) && i.getAvailable())
-                .collect(Collectors.toList());
+        return ItemMapper.toItemDtos(items);
+    }
+
+    public CursorPage<ItemDto> getItemByTextAfter(String text, String cursor, int size) throws ValidationException {
+        if (size < 1)
+            throw new ValidationException("Ошибка пагинации");
+
+        if (text.equals(""))
+            return new CursorPage<>(new ArrayList<>(), null);
+
+        List<Item> items = itemRepository.searchAvailableByTextAfter(escapeLikePattern(text), afterId(cursor),
+                PageRequest.of(0, size + 1));
+
+        return CursorPage.of(items, size, item -> Cursor.encode(item.getId()), ItemMapper::toItemDtos);
+    }
+
+    public StreamingResponseBody streamItemsByText(String text) {
+        if (text.equals(""))
+            return ndjsonStreamer.stream(Stream::empty, ItemMapper::toItemDtos);
+
+        String pattern = escapeLikePattern(text);
+        return ndjsonStreamer.stream(() -> itemRepository.streamAvailableByText(pattern), ItemMapper::toItemDtos);
+    }
+
+    public CursorPage<ItemDto> getAvailableItems(LocalDateTime start, LocalDateTime end,
+                                                 String cursor, int size) throws ValidationException {
+        if (size < 1)
+            throw new ValidationException("Ошибка пагинации");
+        if (start.equals(end))
+            throw new ValidationException("Дата начала равна дате конца");
+        if (start.isAfter(end))
+            throw new ValidationException("Дата начала позже даты конца");
+
+        List<Item> freeItems = itemRepository.findFreeAfter(afterId(cursor), BookingStatus.APPROVED, start, end,
+                PageRequest.of(0, size + 1));
+
+        return CursorPage.of(freeItems, size, item -> Cursor.encode(item.getId()), ItemMapper::toItemDtos);
     }
 
     public CommentDto createComment(long itemId, CommentDto commentDto, long bookerId) throws NotFoundException, ValidationException {
@@ -140,18 +285,92 @@ public class ItemService {
             throw new ValidationException("Комментарий не может быть написан");
 
         comment.setAuthor(booking.getBooker());
-        return CommentMapper.toCommentDto(commentRepository.save(comment));
+        CommentDto createdCommentDto = CommentMapper.toCommentDto(commentRepository.save(comment));
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+        return createdCommentDto;
+    }
+
+    private ItemDto loadItemView(long itemId) {
+        Optional<Item> item = itemRepository.findById(itemId);
+        if (item.isEmpty())
+            return null;
+
+        ItemDto itemDto = ItemMapper.toItemDto(item.get());
+        setBookings(List.of(itemDto));
+        itemDto.setComments(CommentMapper.toCommentDtos(commentRepository.findAllCommentsByItemId(itemId)
+                .orElse(new ArrayList<>())));
+        return itemDto;
+    }
+
+    private List<ItemDto> toOwnerItemDtos(List<Item> items) {
+        List<ItemDto> itemDtos = ItemMapper.toItemDtos(items);
+        setBookings(itemDtos);
+        setComments(itemDtos);
+        return itemDtos;
+    }
+
+    private void setBookings(List<ItemDto> itemDtos) {
+        if (itemDtos.isEmpty())
+            return;
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemDto> itemDtosById = itemDtos.stream()
+                .collect(Collectors.toMap(ItemDto::getId, Function.identity()));
+
+        List<Booking> bookings = itemRepository.findLastAndNextBookingsByItemIds(itemDtosById.keySet(),
+                BookingStatus.APPROVED, now);
+
+        for (Booking booking : bookings) {
+            ItemDto itemDto = itemDtosById.get(booking.getItem().getId());
+            if (booking.getStart().isAfter(now))
+                itemDto.setNextBooking(BookingMapper.toBookingDto(booking));
+            else
+                itemDto.setLastBooking(BookingMapper.toBookingDto(booking));
+        }
+    }
+
+    private void setComments(List<ItemDto> itemDtos) {
+        if (itemDtos.isEmpty())
+            return;
+
+        List<Long> itemIds = itemDtos.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, List<CommentDto>> commentDtosByItemId = CommentMapper
+                .toCommentDtos(commentRepository.findAllCommentsByItemIds(itemIds))
+                .stream()
+                .collect(Collectors.groupingBy(commentDto -> commentDto.getItem().getId()));
+
+        for (ItemDto itemDto : itemDtos)
+            itemDto.getComments().addAll(commentDtosByItemId.getOrDefault(itemDto.getId(), List.of()));
     }
 
-    private void setBookings(long itemId, ItemDto itemDto) {
-        List<Booking> nextBooking = itemRepository.findNextBookingByItemId(itemId, LocalDateTime.now())
-                .orElse(null);
-        List<Booking> lastBooking = itemRepository.findLastBookingByItemId(itemId, LocalDateTime.now())
-                .orElse(null);
+    private String validateBatchItem(ItemDto itemDto, Map<Long, ItemRequest> requestsById) {
+        if (itemDto == null)
+            return "Некорректные данные вещи";
+
+        Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto);
+        if (!violations.isEmpty())
+            return "Некорректные данные вещи: " + violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+
+        if (itemDto.getRequestId() != 0 && !requestsById.containsKey(itemDto.getRequestId()))
+            return "Запрос не найден";
+
+        return null;
+    }
+
+    private long afterId(String cursor) throws ValidationException {
+        Cursor after = Cursor.decode(cursor);
+        return after == null ? 0 : after.getId();
+    }
 
-        if (nextBooking != null && nextBooking.size() > 0 && nextBooking.get(0).getStatus() == BookingStatus.APPROVED)
-            itemDto.setNextBooking(BookingMapper.toBookingDto(nextBooking.get(0)));
-        if (lastBooking != null && lastBooking.size() > 0 && lastBooking.get(0).getStatus() == BookingStatus.APPROVED)
-            itemDto.setLastBooking(BookingMapper.toBookingDto(lastBooking.get(lastBooking.size() - 1)));
+    private String escapeLikePattern(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
 }
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserChangedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.function.Function;
+
+@Component
+public class ItemViewCache {
+    private final Cache<Long, ItemDto> cache;
+
+    public ItemViewCache(@Value("${shareit.cache.items.maximum-size}") long maximumSize,
+                         @Value("${shareit.cache.items.expire-after-write}") Duration expireAfterWrite,
+                         MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "items");
+    }
+
+    public Optional<ItemDto> get(long itemId, Function<Long, ItemDto> loader) {
+        return Optional.ofNullable(cache.get(itemId, loader))
+                .map(this::copy);
+    }
+
+    public void invalidate(long itemId) {
+        cache.invalidate(itemId);
+    }
+
+    @EventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        invalidate(event.getItemId());
+    }
+
+    // a view shows its owner, comment authors and bookers; a deleted user's items, comments and bookings
+    // are removed by cascades that publish no item events, so a deletion drops every view
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isDeleted())
+            cache.invalidateAll();
+        else
+            cache.asMap().values().removeIf(itemDto -> shows(itemDto, event.getUserId()));
+    }
+
+    private static boolean shows(ItemDto itemDto, long userId) {
+        return itemDto.getOwner().getId() == userId
+                || itemDto.getComments().stream().anyMatch(comment -> comment.getAuthor().getId() == userId)
+                || isBooker(itemDto.getNextBooking(), userId)
+                || isBooker(itemDto.getLastBooking(), userId);
+    }
+
+    private static boolean isBooker(BookingDto bookingDto, long userId) {
+        return bookingDto != null && bookingDto.getBookerId() == userId;
+    }
+
+    private ItemDto copy(ItemDto itemDto) {
+        return new ItemDto(
+                itemDto.getId(),
+                itemDto.getName(),
+                itemDto.getDescription(),
+                itemDto.getAvailable(),
+                itemDto.getOwner(),
+                itemDto.getRequestId(),
+                new ArrayList<>(itemDto.getComments()),
+                itemDto.getNextBooking(),
+                itemDto.getLastBooking()
+        );
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemBatchResultDto {
+    private int index;
+    private ItemDto item;
+    private String error;
+}
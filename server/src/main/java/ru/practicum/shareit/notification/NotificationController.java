@@ -0,0 +1,23 @@
+package ru.practicum.shareit.notification;
+
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.exception.NotFoundException;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping(path = "/notifications")
+public class NotificationController {
+    private final NotificationService notificationService;
+    private static final String SHARER_HEADER = "X-Sharer-User-Id";
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestHeader(SHARER_HEADER) long userId) throws NotFoundException {
+        return notificationService.subscribe(userId);
+    }
+}
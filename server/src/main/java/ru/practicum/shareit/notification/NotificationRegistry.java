@@ -0,0 +1,143 @@
+package ru.practicum.shareit.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class NotificationRegistry {
+    private final Map<Long, Queue<SseEmitter>> emittersByUserId = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    // round in which each heartbeat still being written started
+    private final Map<SseEmitter, Long> writesInProgress = new ConcurrentHashMap<>();
+    private final AtomicLong heartbeatRounds = new AtomicLong();
+    private final Counter droppedNotifications;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final int maxPerUser;
+
+    public NotificationRegistry(MeterRegistry meterRegistry,
+                                @Value("${shareit.notifications.timeout}") Duration timeout,
+                                @Value("${shareit.notifications.max-per-user}") int maxPerUser,
+                                @Value("${shareit.notifications.threads}") int threads,
+                                @Value("${shareit.notifications.queue-capacity}") int queueCapacity) {
+        this.droppedNotifications = meterRegistry.counter("shareit.notifications.dropped");
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("notifications-"),
+                (task, pool) -> droppedNotifications.increment());
+        new ExecutorServiceMetrics(executor, "notifications", Tags.empty()).bindTo(meterRegistry);
+        meterRegistry.gauge("shareit.notifications.subscribers", subscribers);
+        this.timeoutMillis = timeout.toMillis();
+        this.maxPerUser = maxPerUser;
+    }
+
+    public SseEmitter subscribe(long userId) {
+        return register(userId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter register(long userId, SseEmitter emitter) {
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> emitter.complete());
+
+        Queue<SseEmitter> emitters = emittersByUserId.compute(userId, (id, current) -> {
+            Queue<SseEmitter> queue = current == null ? new ConcurrentLinkedQueue<>() : current;
+            queue.add(emitter);
+            return queue;
+        });
+        subscribers.incrementAndGet();
+
+        while (emitters.size() > maxPerUser) {
+            SseEmitter oldest = emitters.peek();
+            if (oldest == null || oldest == emitter)
+                break;
+            remove(userId, oldest);
+            oldest.complete();
+        }
+        return emitter;
+    }
+
+    public void send(long userId, String name, Object data) {
+        Queue<SseEmitter> emitters = emittersByUserId.get(userId);
+        if (emitters == null)
+            return;
+
+        executor.execute(() -> {
+            for (SseEmitter emitter : emitters)
+                send(userId, emitter, SseEmitter.event().name(name).data(data));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.notifications.heartbeat-interval}",
+            initialDelayString = "${shareit.notifications.heartbeat-interval}")
+    public void heartbeat() {
+        long round = heartbeatRounds.incrementAndGet();
+        emittersByUserId.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                Long startedRound = writesInProgress.get(emitter);
+                if (startedRound == null) {
+                    executor.execute(() -> sendHeartbeat(userId, emitter, round));
+                } else if (startedRound < round - 1) {
+                    // blocked for a whole interval: the client stopped reading
+                    remove(userId, emitter);
+                    emitter.complete();
+                }
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        emittersByUserId.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    private void sendHeartbeat(long userId, SseEmitter emitter, long round) {
+        writesInProgress.put(emitter, round);
+        try {
+            send(userId, emitter, SseEmitter.event().comment("heartbeat"));
+        } finally {
+            writesInProgress.remove(emitter);
+        }
+    }
+
+    private void send(long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            remove(userId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(long userId, SseEmitter emitter) {
+        emittersByUserId.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter))
+                subscribers.decrementAndGet();
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.notification;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.BookingStatusChangedEvent;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemCreatedEvent;
+import ru.practicum.shareit.user.UserLookup;
+
+@Service
+@AllArgsConstructor
+public class NotificationService {
+    public static final String BOOKING_EVENT = "booking";
+    public static final String REQUEST_ITEM_EVENT = "request-item";
+
+    private final NotificationRegistry notificationRegistry;
+    private final UserLookup userLookup;
+
+    public SseEmitter subscribe(long userId) throws NotFoundException {
+        if (!userLookup.exists(userId))
+            throw new NotFoundException("Пользователь не найден");
+
+        return notificationRegistry.subscribe(userId);
+    }
+
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        notificationRegistry.send(event.getBooking().getBookerId(), BOOKING_EVENT, event.getBooking());
+    }
+
+    @EventListener
+    public void onItemCreated(ItemCreatedEvent event) {
+        if (event.getRequesterId() != 0)
+            notificationRegistry.send(event.getRequesterId(), REQUEST_ITEM_EVENT, event.getItem());
+    }
+}
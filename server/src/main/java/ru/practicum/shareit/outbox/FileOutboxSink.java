@@ -0,0 +1,47 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// a local stand-in for the broker: nothing reads or rotates the file, so it is kept out of production
+@Component
+@Profile("dev")
+@ConditionalOnProperty(name = "shareit.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(@Value("${shareit.outbox.file}") Path path) {
+        this.path = path;
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Override
+    public synchronized void send(List<OutboxEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (OutboxEvent event : events) {
+            lines.write(objectMapper.writeValueAsBytes(event));
+            lines.write('\n');
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@Profile({"ci", "test"})
+@ConditionalOnProperty(name = "shareit.outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+    private final List<OutboxEvent> events = new ArrayList<>();
+
+    @Override
+    public synchronized void send(List<OutboxEvent> events) {
+        this.events.addAll(events);
+    }
+
+    public synchronized List<OutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
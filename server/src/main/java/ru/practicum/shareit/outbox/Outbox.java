@@ -0,0 +1,32 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+@Component
+public class Outbox {
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public Outbox(OutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(OutboxEventType type, long aggregateId, Object payload) {
+        try {
+            outboxRepository.save(new OutboxEvent(0, type, aggregateId, objectMapper.writeValueAsString(payload),
+                    LocalDateTime.now()));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+public class OutboxDispatcher {
+    private final OutboxRepository outboxRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OutboxDispatcher(OutboxRepository outboxRepository, OutboxSink outboxSink,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${shareit.outbox.batch-size}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.dispatch-interval}",
+            initialDelayString = "${shareit.outbox.dispatch-interval}")
+    public void dispatch() {
+        Integer sent;
+        do {
+            sent = transactionTemplate.execute(status -> dispatchBatch());
+        } while (sent != null && sent == batchSize);
+    }
+
+    private int dispatchBatch() {
+        List<OutboxEvent> events = outboxRepository.findBatchForDispatch(PageRequest.of(0, batchSize));
+        if (events.isEmpty())
+            return 0;
+
+        try {
+            outboxSink.send(events);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        outboxRepository.deleteAllByIdInBatch(events.stream()
+                .map(OutboxEvent::getId)
+                .collect(Collectors.toList()));
+        return events.size();
+    }
+}
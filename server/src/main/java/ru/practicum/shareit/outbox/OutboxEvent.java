@@ -0,0 +1,36 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_id_seq")
+    @SequenceGenerator(name = "outbox_events_id_seq", sequenceName = "outbox_events_id_seq", allocationSize = 50)
+    @Column(name = "id")
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type")
+    private OutboxEventType type;
+
+    @Column(name = "aggregate_id")
+    private long aggregateId;
+
+    @JsonRawValue
+    @Column(name = "payload")
+    private String payload;
+
+    @Column(name = "created")
+    private LocalDateTime created;
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface OutboxSink {
+    void send(List<OutboxEvent> events) throws IOException;
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Data
+@AllArgsConstructor
+public class Cursor {
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime key;
+    private long id;
+
+    public static String encode(long id) {
+        return encode(null, id);
+    }
+
+    public static String encode(LocalDateTime key, long id) {
+        String value = (key == null ? "" : key.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) throws ValidationException {
+        if (token == null || token.isBlank())
+            return null;
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            String key = value.substring(0, separator);
+
+            return new Cursor(
+                    key.isEmpty() ? null : LocalDateTime.parse(key),
+                    Long.parseLong(value.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("Некорректный курсор пагинации");
+        }
+    }
+}
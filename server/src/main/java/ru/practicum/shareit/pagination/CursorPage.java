@@ -0,0 +1,34 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<T> content;
+    private String nextCursor;
+
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, String> cursorOf,
+                                          Function<List<E>, List<T>> mapper) {
+        if (rows.size() <= size)
+            return new CursorPage<>(mapper.apply(rows), null);
+
+        List<E> page = rows.subList(0, size);
+        return new CursorPage<>(mapper.apply(page), cursorOf.apply(page.get(size - 1)));
+    }
+
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (nextCursor != null)
+            builder.header(NEXT_CURSOR_HEADER, nextCursor);
+        return builder.body(content);
+    }
+}
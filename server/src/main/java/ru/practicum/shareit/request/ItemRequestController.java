@@ -1,10 +1,12 @@
 package ru.practicum.shareit.request;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -23,8 +25,10 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public List<ItemRequestDto> findAllOwnerRequests(@RequestHeader(SHARER_HEADER) long userId) throws NotFoundException {
-        return itemRequestService.findAllOwnerRequests(userId);
+    public List<ItemRequestDto> findAllOwnerRequests(@RequestHeader(SHARER_HEADER) long userId,
+                                                     @RequestParam(required = false) Integer from,
+                                                     @RequestParam(required = false) Integer size) throws NotFoundException, ValidationException {
+        return itemRequestService.findAllOwnerRequests(userId, from, size);
     }
 
     @GetMapping("/all")
@@ -34,6 +38,20 @@ public class ItemRequestController {
         return itemRequestService.findAllRequests(from, size, userId);
     }
 
+    @GetMapping(path = "/all", params = "cursor")
+    public ResponseEntity<List<ItemRequestDto>> findAllRequestsAfter(@RequestParam String cursor,
+                                                                     @RequestParam(defaultValue = "20") int size,
+                                                                     @RequestHeader(SHARER_HEADER) long userId) throws ValidationException, NotFoundException {
+        return itemRequestService.findAllRequestsAfter(cursor, size, userId).toResponseEntity();
+    }
+
+    @GetMapping("/matches")
+    public List<RequestMatchDto> findMatches(@RequestHeader(SHARER_HEADER) long userId,
+                                             @RequestParam(defaultValue = "0") int from,
+                                             @RequestParam(defaultValue = "20") int size) throws ValidationException, NotFoundException {
+        return itemRequestService.findMatches(userId, from, size);
+    }
+
     @GetMapping("/{requestId}")
     public ItemRequestDto getRequestById(@PathVariable long requestId,
                                          @RequestHeader(SHARER_HEADER) long userId) throws NotFoundException {
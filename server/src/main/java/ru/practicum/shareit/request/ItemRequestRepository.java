@@ -4,31 +4,54 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.stream.NdjsonStreamer;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
-    @Query("select r from ItemRequest r where r.requester.id = :userId")
+    @Query("select r from ItemRequest r where r.requester.id = :userId order by r.created, r.id")
     List<ItemRequest> findAllRequestsByUserId(@Param("userId") long userId);
 
-    @Query("select u from User u where u.id = :userId")
-    Optional<User> getUserIfExist(@Param("userId") long userId);
-
     @Query("select i from Item i where i.request.id = :requestId")
     List<Item> getItemsByRequestId(@Param("requestId") long requestId);
 
-    @Query("select r from ItemRequest r where r.requester.id = :userId")
+    @Query("select r from ItemRequest r where r.requester.id = :userId order by r.created, r.id")
     Page<ItemRequest> findAllRequestsByUserId(@Param("userId") long userId, Pageable pageable);
 
     @Query("select r from ItemRequest r where r.requester.id != :userId")
     Page<ItemRequest> findAllRequestsExceptUserId(@Param("userId") long userId, Pageable pageable);
 
+    @Query("select r from ItemRequest r where r.requester.id <> :userId order by r.created, r.id")
+    List<ItemRequest> findFirstRequestsExceptUserId(@Param("userId") long userId, Pageable pageable);
+
+    @Query("select r from ItemRequest r where r.requester.id <> :userId " +
+            "and (r.created > :created or (r.created = :created and r.id > :afterId)) " +
+            "order by r.created, r.id")
+    List<ItemRequest> findRequestsExceptUserIdAfter(@Param("userId") long userId,
+                                                    @Param("created") LocalDateTime created,
+                                                    @Param("afterId") long afterId,
+                                                    Pageable pageable);
+
+    @Query("select r from ItemRequest r join fetch r.requester order by r.created, r.id")
+    List<ItemRequest> findFeed(Pageable pageable);
+
     @Query("select i from Item i where i.request in :requests")
     List<Item> findItemsByRequests(@Param("requests") List<ItemRequest> itemRequests);
+
+    @Query("select i from Item i join i.request r where r.requester.id = :userId")
+    List<Item> findItemsByRequesterId(@Param("userId") long userId);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "" + NdjsonStreamer.FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select r from ItemRequest r join fetch r.requester " +
+            "where not exists (select i from Item i where i.request = r)")
+    Stream<ItemRequest> streamOpenRequests();
 }
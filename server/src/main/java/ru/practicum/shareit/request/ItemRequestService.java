@@ -9,13 +9,19 @@ import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserLookup;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Repository
@@ -23,28 +29,35 @@ import java.util.stream.Collectors;
 public class ItemRequestService {
 
     private final ItemRequestRepository itemRequestRepository;
+    private final RequestFeed requestFeed;
+    private final RequestMatchRepository requestMatchRepository;
+    private final RequestMatcher requestMatcher;
+    private final UserLookup userLookup;
 
     public ItemRequestDto createRequest(long userId, ItemRequestDto itemRequestDto) throws NotFoundException {
         ItemRequest itemRequest = RequestMapper.toItemRequest(itemRequestDto);
 
-        itemRequest.setRequester(itemRequestRepository.getUserIfExist(userId)
+        itemRequest.setRequester(userLookup.fetch(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден")));
 
-        return RequestMapper.toItemRequestDto(itemRequestRepository.save(itemRequest));
+        ItemRequest savedItemRequest = itemRequestRepository.save(itemRequest);
+        requestFeed.add(savedItemRequest);
+        requestMatcher.add(savedItemRequest);
+        return RequestMapper.toItemRequestDto(savedItemRequest);
     }
 
-    public List<ItemRequestDto> findAllOwnerRequests(long userId) throws NotFoundException {
-        List<ItemRequest> itemRequests = itemRequestRepository
-                .findAllRequestsByUserId(userId);
-
-        List<ItemRequestDto> itemRequestDtos = setItems(itemRequests);
+    public List<ItemRequestDto> findAllOwnerRequests(long userId, Integer from, Integer size) throws NotFoundException, ValidationException {
+        if (from != null && from < 0 || size != null && size < 1)
+            throw new ValidationException("Ошибка валидации пагинации запроса");
 
-        itemRequestRepository.getUserIfExist(userId)
+        userLookup.find(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-        return itemRequestDtos.stream()
-                .sorted(Comparator.comparing(ItemRequestDto::getCreated))
-                .collect(Collectors.toList());
+        if (from == null || size == null)
+            return setItems(itemRequestRepository.findAllRequestsByUserId(userId),
+                    itemRequestRepository.findItemsByRequesterId(userId));
+
+        return setItems(itemRequestRepository.findAllRequestsByUserId(userId, PageRequest.of(from, size)).getContent());
     }
 
     public List<ItemRequestDto> findAllRequests(Integer from, Integer size, long userId) throws ValidationException, NotFoundException {
@@ -54,16 +67,51 @@ public class ItemRequestService {
         if (from < 0 || size < 1)
             throw new ValidationException("Ошибка валидации пагинации запроса");
 
-        itemRequestRepository.getUserIfExist(userId)
+        userLookup.find(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
-        Pageable pageable = PageRequest.of(from, size, Sort.by("created"));
+        Optional<List<ItemRequestDto>> feedPage = requestFeed.getPage(userId, from, size);
+        if (feedPage.isPresent())
+            return feedPage.get();
+
+        Pageable pageable = PageRequest.of(from, size, Sort.by("created", "id"));
         List<ItemRequest> itemRequest = itemRequestRepository.findAllRequestsExceptUserId(userId, pageable).getContent();
         return setItems(itemRequest);
     }
 
+    public CursorPage<ItemRequestDto> findAllRequestsAfter(String cursor, int size, long userId) throws ValidationException, NotFoundException {
+        if (size < 1)
+            throw new ValidationException("Ошибка валидации пагинации запроса");
+
+        Cursor after = Cursor.decode(cursor);
+        if (after != null && after.getKey() == null)
+            throw new ValidationException("Некорректный курсор пагинации");
+
+        userLookup.find(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<ItemRequest> itemRequests = after == null
+                ? itemRequestRepository.findFirstRequestsExceptUserId(userId, pageable)
+                : itemRequestRepository.findRequestsExceptUserIdAfter(userId, after.getKey(), after.getId(), pageable);
+
+        return CursorPage.of(itemRequests, size,
+                itemRequest -> Cursor.encode(itemRequest.getCreated(), itemRequest.getId()),
+                this::setItems);
+    }
+
+    public List<RequestMatchDto> findMatches(long userId, int from, int size) throws ValidationException, NotFoundException {
+        if (from < 0 || size < 1)
+            throw new ValidationException("Ошибка валидации пагинации запроса");
+
+        userLookup.find(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        return RequestMapper.toRequestMatchDtos(requestMatchRepository.findAllByItemOwnerId(userId, PageRequest.of(from, size)));
+    }
+
     public ItemRequestDto getRequestById(long requestId, long userId) throws NotFoundException {
-        itemRequestRepository.getUserIfExist(userId)
+        userLookup.find(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
         ItemRequestDto itemRequestDto = RequestMapper.toItemRequestDto(itemRequestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("Запрос не найден")));
@@ -73,16 +121,19 @@ public class ItemRequestService {
     }
 
     private List<ItemRequestDto> setItems(List<ItemRequest> itemRequests) {
-        List<ItemDto> itemDtos = ItemMapper.toItemDtos(itemRequestRepository.findItemsByRequests(itemRequests));
+        if (itemRequests.isEmpty())
+            return new ArrayList<>();
 
-        List<ItemRequestDto> itemRequestDtos = RequestMapper.toItemRequestDtos(itemRequests);
+        return setItems(itemRequests, itemRequestRepository.findItemsByRequests(itemRequests));
+    }
+
+    private List<ItemRequestDto> setItems(List<ItemRequest> itemRequests, List<Item> items) {
+        Map<Long, List<ItemDto>> itemDtosByRequestId = ItemMapper.toItemDtos(items).stream()
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
 
-        for (ItemRequestDto itemRequestDto : itemRequestDtos) {
-            for (ItemDto itemDto : itemDtos) {
-                if (itemDto.getRequestId() == itemRequestDto.getId())
-                    itemRequestDto.getItems().add(itemDto);
-            }
-        }
+        List<ItemRequestDto> itemRequestDtos = RequestMapper.toItemRequestDtos(itemRequests);
+        for (ItemRequestDto itemRequestDto : itemRequestDtos)
+            itemRequestDto.getItems().addAll(itemDtosByRequestId.getOrDefault(itemRequestDto.getId(), List.of()));
 
         return itemRequestDtos;
     }
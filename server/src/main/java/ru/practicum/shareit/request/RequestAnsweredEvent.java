@@ -0,0 +1,10 @@
+package ru.practicum.shareit.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RequestAnsweredEvent {
+    private long requestId;
+}
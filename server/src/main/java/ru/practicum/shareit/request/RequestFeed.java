@@ -0,0 +1,311 @@
+package ru.practicum.shareit.request;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.ItemChangedEvent;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.RequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserChangedEvent;
+import ru.practicum.shareit.user.UserLookup;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// holds the oldest window-size requests in feed order, the part that the first pages read;
+// a page that runs past an incomplete window is read from the database
+@Component
+public class RequestFeed {
+    private static final Comparator<ItemRequest> FEED_ORDER = Comparator.comparing(ItemRequest::getCreated)
+            .thenComparingLong(ItemRequest::getId);
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final UserLookup userLookup;
+    private final int windowSize;
+    private final Map<Long, Responses> responsesByRequestId = new ConcurrentHashMap<>();
+    private final Map<Long, Long> requestIdByItemId = new ConcurrentHashMap<>();
+    private final Object rebuildLock = new Object();
+    private volatile Snapshot snapshot;
+    private List<ItemRequest> addedDuringRebuild;
+    private Set<Long> requestersChangedDuringRebuild;
+
+    public RequestFeed(ItemRequestRepository itemRequestRepository, UserLookup userLookup,
+                       @Value("${shareit.requests.feed.window-size}") int windowSize) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.userLookup = userLookup;
+        this.windowSize = windowSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.requests.feed.refresh-interval}",
+            initialDelayString = "${shareit.requests.feed.refresh-interval}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                addedDuringRebuild = new ArrayList<>();
+                requestersChangedDuringRebuild = new HashSet<>();
+            }
+            List<ItemRequest> loaded = itemRequestRepository.findFeed(PageRequest.of(0, windowSize + 1));
+            boolean complete = loaded.size() <= windowSize;
+            if (!complete)
+                loaded = loaded.subList(0, windowSize);
+            long loadedMaxId = loaded.stream().mapToLong(ItemRequest::getId).max().orElse(0);
+
+            Set<Long> changedRequesters;
+            synchronized (this) {
+                List<ItemRequest> added = addedDuringRebuild;
+                changedRequesters = requestersChangedDuringRebuild;
+                addedDuringRebuild = null;
+                requestersChangedDuringRebuild = null;
+                responsesByRequestId.clear();
+                requestIdByItemId.clear();
+                Snapshot rebuilt = new Snapshot(loaded.toArray(new ItemRequest[0]), complete);
+                for (ItemRequest request : added)
+                    if (request.getId() > loadedMaxId)
+                        rebuilt = insert(rebuilt, request);
+                snapshot = rebuilt;
+            }
+            // the load may have run before these changes were committed
+            for (long requesterId : changedRequesters)
+                replaceRequester(requesterId, userLookup.fetch(requesterId).orElse(null));
+        }
+    }
+
+    public synchronized void add(ItemRequest itemRequest) {
+        if (addedDuringRebuild != null)
+            addedDuringRebuild.add(itemRequest);
+        if (snapshot != null)
+            snapshot = insert(snapshot, itemRequest);
+    }
+
+    public Optional<List<ItemRequestDto>> getPage(long userId, int from, int size) {
+        Snapshot current = snapshot;
+        if (current == null)
+            return Optional.empty();
+
+        List<ItemRequest> page = current.page(userId, (long) from * size, size);
+        // a short page may continue past an incomplete window
+        if (page.size() < size && !current.complete)
+            return Optional.empty();
+
+        Map<Long, List<ItemDto>> responses = responses(page);
+        List<ItemRequestDto> itemRequestDtos = RequestMapper.toItemRequestDtos(page);
+        for (ItemRequestDto itemRequestDto : itemRequestDtos)
+            itemRequestDto.getItems().addAll(responses.get(itemRequestDto.getId()));
+        return Optional.of(itemRequestDtos);
+    }
+
+    @EventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        Long requestId = requestIdByItemId.remove(event.getItemId());
+        if (requestId != null)
+            responsesByRequestId.remove(requestId);
+    }
+
+    @EventListener
+    public void onRequestAnswered(RequestAnsweredEvent event) {
+        responsesByRequestId.remove(event.getRequestId());
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        replaceRequester(event.getUserId(),
+                event.isDeleted() ? null : userLookup.fetch(event.getUserId()).orElse(null));
+    }
+
+    // a null requester drops the deleted user's requests; what is left is still the head of the feed
+    private synchronized void replaceRequester(long requesterId, User requester) {
+        if (requestersChangedDuringRebuild != null)
+            requestersChangedDuringRebuild.add(requesterId);
+        if (snapshot == null)
+            return;
+
+        if (requester == null)
+            for (int position : snapshot.positionsByRequesterId.getOrDefault(requesterId, Snapshot.NONE))
+                responsesByRequestId.remove(snapshot.requests[position].getId());
+        snapshot = snapshot.withRequester(requesterId, requester);
+    }
+
+    private Snapshot insert(Snapshot current, ItemRequest itemRequest) {
+        int length = current.requests.length;
+        if (!current.complete && (length == 0 || FEED_ORDER.compare(itemRequest, current.requests[length - 1]) > 0))
+            return current;
+
+        ItemRequest[] requests = Arrays.copyOf(current.requests, current.requests.length + 1);
+        int position = requests.length - 1;
+        while (position > 0 && FEED_ORDER.compare(requests[position - 1], itemRequest) > 0) {
+            requests[position] = requests[position - 1];
+            position--;
+        }
+        requests[position] = itemRequest;
+
+        if (requests.length <= windowSize)
+            return position == requests.length - 1 ? current.append(requests) : new Snapshot(requests, current.complete);
+
+        responsesByRequestId.remove(requests[requests.length - 1].getId());
+        return new Snapshot(Arrays.copyOf(requests, requests.length - 1), false);
+    }
+
+    // a load is cached only if no invalidation removed its placeholder in the meantime
+    private Map<Long, List<ItemDto>> responses(List<ItemRequest> page) {
+        Map<Long, List<ItemDto>> responses = new HashMap<>();
+        Map<Long, Responses> placeholders = new HashMap<>();
+        List<ItemRequest> missing = new ArrayList<>();
+        for (ItemRequest request : page) {
+            Responses cached = responsesByRequestId.get(request.getId());
+            if (cached != null && cached.items != null) {
+                responses.put(request.getId(), cached.items);
+                continue;
+            }
+            missing.add(request);
+            Responses placeholder = new Responses(null);
+            if (cached == null && responsesByRequestId.putIfAbsent(request.getId(), placeholder) == null)
+                placeholders.put(request.getId(), placeholder);
+        }
+        if (missing.isEmpty())
+            return responses;
+
+        try {
+            Map<Long, List<ItemDto>> loaded = new HashMap<>();
+            for (ItemRequest request : missing)
+                loaded.put(request.getId(), new ArrayList<>());
+            for (ItemDto itemDto : ItemMapper.toItemDtos(itemRequestRepository.findItemsByRequests(missing))) {
+                loaded.get(itemDto.getRequestId()).add(itemDto);
+                requestIdByItemId.put(itemDto.getId(), itemDto.getRequestId());
+            }
+            loaded.forEach((requestId, itemDtos) -> {
+                List<ItemDto> items = List.copyOf(itemDtos);
+                responses.put(requestId, items);
+                Responses placeholder = placeholders.remove(requestId);
+                if (placeholder != null)
+                    responsesByRequestId.replace(requestId, placeholder, new Responses(items));
+            });
+        } finally {
+            placeholders.forEach(responsesByRequestId::remove);
+        }
+        return responses;
+    }
+
+    private static final class Responses {
+        private final List<ItemDto> items;
+
+        Responses(List<ItemDto> items) {
+            this.items = items;
+        }
+    }
+
+    private static final class Snapshot {
+        private static final int[] NONE = new int[0];
+
+        private final ItemRequest[] requests;
+        private final Map<Long, int[]> positionsByRequesterId;
+        // false when newer requests exist past the window
+        private final boolean complete;
+
+        private Snapshot(ItemRequest[] requests, Map<Long, int[]> positionsByRequesterId, boolean complete) {
+            this.requests = requests;
+            this.positionsByRequesterId = positionsByRequesterId;
+            this.complete = complete;
+        }
+
+        Snapshot(ItemRequest[] requests, boolean complete) {
+            this.requests = requests;
+            this.complete = complete;
+
+            Map<Long, List<Integer>> positions = new HashMap<>();
+            for (int i = 0; i < requests.length; i++)
+                positions.computeIfAbsent(requests[i].getRequester().getId(), id -> new ArrayList<>()).add(i);
+            this.positionsByRequesterId = positions.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey,
+                            entry -> entry.getValue().stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        Snapshot append(ItemRequest[] appended) {
+            int position = appended.length - 1;
+            long requesterId = appended[position].getRequester().getId();
+            int[] own = positionsByRequesterId.getOrDefault(requesterId, NONE);
+            int[] extended = Arrays.copyOf(own, own.length + 1);
+            extended[own.length] = position;
+
+            Map<Long, int[]> positions = new HashMap<>(positionsByRequesterId);
+            positions.put(requesterId, extended);
+            return new Snapshot(appended, positions, complete);
+        }
+
+        Snapshot withRequester(long requesterId, User requester) {
+            int[] own = positionsByRequesterId.getOrDefault(requesterId, NONE);
+            if (requester != null) {
+                if (own.length == 0)
+                    return this;
+                ItemRequest[] replaced = requests.clone();
+                for (int position : own) {
+                    ItemRequest request = requests[position];
+                    replaced[position] = new ItemRequest(request.getId(), request.getDescription(),
+                            request.getCreated(), requester);
+                }
+                return new Snapshot(replaced, positionsByRequesterId, complete);
+            }
+
+            if (own.length == 0)
+                return this;
+            ItemRequest[] kept = new ItemRequest[requests.length - own.length];
+            int ownIndex = 0;
+            for (int i = 0; i < requests.length; i++) {
+                if (ownIndex < own.length && own[ownIndex] == i) {
+                    ownIndex++;
+                    continue;
+                }
+                kept[i - ownIndex] = requests[i];
+            }
+            return new Snapshot(kept, complete);
+        }
+
+        List<ItemRequest> page(long userId, long offset, int size) {
+            int[] own = positionsByRequesterId.getOrDefault(userId, NONE);
+
+            // smallest position that has exactly offset foreign requests before it
+            long position = offset;
+            long next = offset + countAtMost(own, position);
+            while (next != position) {
+                position = next;
+                next = offset + countAtMost(own, position);
+            }
+
+            List<ItemRequest> page = new ArrayList<>();
+            int ownIndex = countAtMost(own, position - 1);
+            for (long i = position; i < requests.length && page.size() < size; i++) {
+                if (ownIndex < own.length && own[ownIndex] == i) {
+                    ownIndex++;
+                    continue;
+                }
+                page.add(requests[(int) i]);
+            }
+            return page;
+        }
+
+        private static int countAtMost(int[] positions, long position) {
+            int index = Arrays.binarySearch(positions, (int) Math.min(position, Integer.MAX_VALUE));
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+}
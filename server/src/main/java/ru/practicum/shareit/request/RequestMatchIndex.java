@@ -0,0 +1,135 @@
+package ru.practicum.shareit.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class RequestMatchIndex {
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TOKEN_LENGTH = 3;
+    // crude stemming: inflected forms ("дрель", "дрели", "drills") share a prefix
+    private static final int STEM_LENGTH = 4;
+
+    private final Map<String, Set<Long>> requestIdsByToken = new HashMap<>();
+    private final Map<Long, IndexedRequest> requestsById = new HashMap<>();
+    private final Map<Long, Set<Long>> requestIdsByRequesterId = new HashMap<>();
+
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new HashSet<>();
+        if (text == null)
+            return tokens;
+
+        for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT).replace('ё', 'е')))
+            if (word.length() >= MIN_TOKEN_LENGTH)
+                tokens.add(word.length() > STEM_LENGTH ? word.substring(0, STEM_LENGTH) : word);
+        return tokens;
+    }
+
+    public synchronized void add(long requestId, long requesterId, String description) {
+        remove(requestId);
+        Set<String> tokens = tokenize(description);
+        requestsById.put(requestId, new IndexedRequest(requesterId, tokens));
+        requestIdsByRequesterId.computeIfAbsent(requesterId, key -> new HashSet<>()).add(requestId);
+        for (String token : tokens)
+            requestIdsByToken.computeIfAbsent(token, key -> new HashSet<>()).add(requestId);
+    }
+
+    public synchronized void remove(long requestId) {
+        IndexedRequest removed = requestsById.remove(requestId);
+        if (removed == null)
+            return;
+
+        Set<Long> requesterRequestIds = requestIdsByRequesterId.get(removed.getRequesterId());
+        requesterRequestIds.remove(requestId);
+        if (requesterRequestIds.isEmpty())
+            requestIdsByRequesterId.remove(removed.getRequesterId());
+        for (String token : removed.getTokens()) {
+            Set<Long> requestIds = requestIdsByToken.get(token);
+            requestIds.remove(requestId);
+            if (requestIds.isEmpty())
+                requestIdsByToken.remove(token);
+        }
+    }
+
+    public synchronized void removeByRequester(long requesterId) {
+        for (long requestId : List.copyOf(requestIdsByRequesterId.getOrDefault(requesterId, Set.of())))
+            remove(requestId);
+    }
+
+    public synchronized boolean contains(long requestId) {
+        return requestsById.containsKey(requestId);
+    }
+
+    public synchronized List<Candidate> match(long ownerId, String text, double minScore, int limit) {
+        Set<String> tokens = tokenize(text);
+        Map<Long, Double> dotProducts = new HashMap<>();
+        for (String token : tokens) {
+            double weight = weight(token);
+            for (long requestId : requestIdsByToken.getOrDefault(token, Set.of()))
+                dotProducts.merge(requestId, weight * weight, Double::sum);
+        }
+
+        double textNorm = norm(tokens);
+        return dotProducts.entrySet().stream()
+                .filter(entry -> requestsById.get(entry.getKey()).getRequesterId() != ownerId)
+                .map(entry -> new Candidate(entry.getKey(), entry.getValue()
+                        / (textNorm * norm(requestsById.get(entry.getKey()).getTokens()))))
+                .filter(candidate -> candidate.getScore() >= minScore)
+                .sorted(Comparator.comparingDouble(Candidate::getScore).reversed()
+                        .thenComparingLong(Candidate::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized double score(Set<String> left, Set<String> right) {
+        double dotProduct = 0;
+        for (String token : left)
+            if (right.contains(token))
+                dotProduct += weight(token) * weight(token);
+        return dotProduct == 0 ? 0 : dotProduct / (norm(left) * norm(right));
+    }
+
+    public synchronized List<String> rarestTokens(Set<String> tokens, int limit) {
+        return tokens.stream()
+                .sorted(Comparator.comparingInt((String token) -> requestIdsByToken.getOrDefault(token, Set.of()).size())
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // cosine similarity over binary token vectors weighted by inverse document frequency
+    private double norm(Set<String> tokens) {
+        double squares = 0;
+        for (String token : tokens)
+            squares += weight(token) * weight(token);
+        return Math.sqrt(squares);
+    }
+
+    private double weight(String token) {
+        int frequency = requestIdsByToken.getOrDefault(token, Set.of()).size();
+        return Math.log(1 + (requestsById.size() + 1.0) / (frequency + 1.0));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Candidate {
+        private long id;
+        private double score;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class IndexedRequest {
+        private long requesterId;
+        private Set<String> tokens;
+    }
+}
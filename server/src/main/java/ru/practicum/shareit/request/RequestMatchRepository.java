@@ -0,0 +1,31 @@
+package ru.practicum.shareit.request;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.RequestMatch;
+
+import java.util.List;
+
+public interface RequestMatchRepository extends JpaRepository<RequestMatch, RequestMatch.Key> {
+
+    @Query("select m from RequestMatch m join fetch m.request r join fetch r.requester " +
+            "join fetch m.item i join fetch i.owner o left join fetch i.request ir left join fetch ir.requester " +
+            "where o.id = :ownerId order by m.score desc, r.id, i.id")
+    List<RequestMatch> findAllByItemOwnerId(@Param("ownerId") long ownerId, Pageable pageable);
+
+    @Query("select i from Item i join fetch i.owner o left join fetch i.request r left join fetch r.requester " +
+            "where i.available = true and o.id <> :requesterId " +
+            "and (lower(i.name) like concat('%', :token, '%') or lower(i.description) like concat('%', :token, '%')) " +
+            "order by i.id desc")
+    List<Item> findCandidateItems(@Param("token") String token,
+                                  @Param("requesterId") long requesterId,
+                                  Pageable pageable);
+
+    @Modifying
+    @Query("delete from RequestMatch m where m.request.id = :requestId")
+    int deleteAllByRequestId(@Param("requestId") long requestId);
+}
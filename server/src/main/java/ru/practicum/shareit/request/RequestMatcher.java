@@ -0,0 +1,229 @@
+package ru.practicum.shareit.request;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.ItemCreatedEvent;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
+import ru.practicum.shareit.user.UserChangedEvent;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class RequestMatcher {
+    private static final int QUERY_TOKENS = 5;
+    private static final int CANDIDATES_PER_TOKEN = 200;
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final RequestMatchRepository requestMatchRepository;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Counter droppedTasks;
+    private final ThreadPoolExecutor executor;
+    private final double minScore;
+    private final int maxCandidates;
+    private final Object rebuildLock = new Object();
+    private volatile RequestMatchIndex index = new RequestMatchIndex();
+    private List<ItemRequest> addedDuringRebuild;
+    private List<Long> removedDuringRebuild;
+    private List<Long> deletedRequestersDuringRebuild;
+
+    public RequestMatcher(ItemRequestRepository itemRequestRepository,
+                          RequestMatchRepository requestMatchRepository,
+                          ItemRepository itemRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${shareit.requests.match.threads}") int threads,
+                          @Value("${shareit.requests.match.queue-capacity}") int queueCapacity,
+                          @Value("${shareit.requests.match.min-score}") double minScore,
+                          @Value("${shareit.requests.match.max-candidates}") int maxCandidates) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.requestMatchRepository = requestMatchRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.droppedTasks = meterRegistry.counter("shareit.requests.match.dropped");
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("request-matcher-"),
+                (task, pool) -> droppedTasks.increment());
+        new ExecutorServiceMetrics(executor, "request-matcher", Tags.empty()).bindTo(meterRegistry);
+        this.minScore = minScore;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                addedDuringRebuild = new ArrayList<>();
+                removedDuringRebuild = new ArrayList<>();
+                deletedRequestersDuringRebuild = new ArrayList<>();
+            }
+
+            RequestMatchIndex rebuilt = new RequestMatchIndex();
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ItemRequest> requests = itemRequestRepository.streamOpenRequests()) {
+                    requests.forEach(request -> rebuilt.add(request.getId(), request.getRequester().getId(),
+                            request.getDescription()));
+                }
+            });
+
+            synchronized (this) {
+                for (ItemRequest request : addedDuringRebuild)
+                    rebuilt.add(request.getId(), request.getRequester().getId(), request.getDescription());
+                for (long requestId : removedDuringRebuild)
+                    rebuilt.remove(requestId);
+                for (long requesterId : deletedRequestersDuringRebuild)
+                    rebuilt.removeByRequester(requesterId);
+                addedDuringRebuild = null;
+                removedDuringRebuild = null;
+                deletedRequestersDuringRebuild = null;
+                index = rebuilt;
+            }
+        }
+    }
+
+    public void add(ItemRequest itemRequest) {
+        synchronized (this) {
+            index.add(itemRequest.getId(), itemRequest.getRequester().getId(), itemRequest.getDescription());
+            if (addedDuringRebuild != null)
+                addedDuringRebuild.add(itemRequest);
+        }
+        submit(() -> matchRequest(itemRequest));
+    }
+
+    @EventListener
+    public void onItemCreated(ItemCreatedEvent event) {
+        ItemDto itemDto = event.getItem();
+        if (Boolean.TRUE.equals(itemDto.getAvailable()))
+            submit(() -> matchItem(itemDto));
+    }
+
+    @EventListener
+    public void onRequestAnswered(RequestAnsweredEvent event) {
+        long requestId = event.getRequestId();
+        synchronized (this) {
+            index.remove(requestId);
+            if (removedDuringRebuild != null)
+                removedDuringRebuild.add(requestId);
+        }
+        submit(() -> transactionTemplate.executeWithoutResult(status ->
+                requestMatchRepository.deleteAllByRequestId(requestId)));
+    }
+
+    // a patch changes neither requesters nor descriptions; a deletion cascades to the user's requests
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (!event.isDeleted())
+            return;
+
+        synchronized (this) {
+            index.removeByRequester(event.getUserId());
+            if (deletedRequestersDuringRebuild != null)
+                deletedRequestersDuringRebuild.add(event.getUserId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("Не удалось сопоставить запросы и вещи", e);
+            }
+        });
+    }
+
+    private void matchItem(ItemDto itemDto) {
+        List<RequestMatchIndex.Candidate> candidates = index.match(itemDto.getOwner().getId(),
+                itemDto.getName() + " " + itemDto.getDescription(), minScore, maxCandidates);
+        if (candidates.isEmpty())
+            return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Item item = itemRepository.findById(itemDto.getId()).orElse(null);
+            if (item == null)
+                return;
+
+            Map<Long, ItemRequest> requestsById = itemRequestRepository
+                    .findAllById(candidates.stream()
+                            .map(RequestMatchIndex.Candidate::getId)
+                            .collect(Collectors.toList()))
+                    .stream()
+                    .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+
+            LocalDateTime now = LocalDateTime.now();
+            requestMatchRepository.saveAll(candidates.stream()
+                    .filter(candidate -> requestsById.containsKey(candidate.getId()))
+                    .map(candidate -> new RequestMatch(requestsById.get(candidate.getId()), item,
+                            candidate.getScore(), now))
+                    .collect(Collectors.toList()));
+        });
+    }
+
+    private void matchRequest(ItemRequest itemRequest) {
+        RequestMatchIndex current = index;
+        Set<String> requestTokens = RequestMatchIndex.tokenize(itemRequest.getDescription());
+        long requesterId = itemRequest.getRequester().getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Item> candidates = new LinkedHashMap<>();
+            for (String token : current.rarestTokens(requestTokens, QUERY_TOKENS))
+                for (Item item : requestMatchRepository.findCandidateItems(token, requesterId,
+                        PageRequest.of(0, CANDIDATES_PER_TOKEN)))
+                    candidates.putIfAbsent(item.getId(), item);
+
+            LocalDateTime now = LocalDateTime.now();
+            List<RequestMatch> matches = candidates.values().stream()
+                    .map(item -> new RequestMatch(itemRequest, item, current.score(requestTokens,
+                            RequestMatchIndex.tokenize(item.getName() + " " + item.getDescription())), now))
+                    .filter(match -> match.getScore() >= minScore)
+                    .sorted(Comparator.comparingDouble(RequestMatch::getScore).reversed())
+                    .limit(maxCandidates)
+                    .collect(Collectors.toList());
+
+            if (!matches.isEmpty() && index.contains(itemRequest.getId())
+                    && itemRequestRepository.existsById(itemRequest.getId()))
+                requestMatchRepository.saveAll(matches);
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestMatchDto {
+    private ItemRequestDto request;
+    private ItemDto item;
+    private double score;
+}
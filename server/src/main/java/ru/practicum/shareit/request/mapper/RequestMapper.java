@@ -1,7 +1,10 @@
 package ru.practicum.shareit.request.mapper;
 
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 import java.util.ArrayList;
@@ -36,4 +39,17 @@ public class RequestMapper {
 
         return itemRequestDtos;
     }
+
+    public static List<RequestMatchDto> toRequestMatchDtos(List<RequestMatch> requestMatches) {
+        List<RequestMatchDto> requestMatchDtos = new ArrayList<>();
+
+        for (RequestMatch requestMatch : requestMatches)
+            requestMatchDtos.add(new RequestMatchDto(
+                    RequestMapper.toItemRequestDto(requestMatch.getRequest()),
+                    ItemMapper.toItemDto(requestMatch.getItem()),
+                    requestMatch.getScore()
+            ));
+
+        return requestMatchDtos;
+    }
 }
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Component
+public class NdjsonStreamer {
+    public static final int FETCH_SIZE = 500;
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    public NdjsonStreamer(PlatformTransactionManager transactionManager, EntityManager entityManager) {
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.entityManager = entityManager;
+    }
+
+    public <E, T> StreamingResponseBody stream(Supplier<Stream<E>> rows, Function<List<E>, List<T>> mapper) {
+        return outputStream -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<E> stream = rows.get()) {
+                Iterator<E> iterator = stream.iterator();
+                List<E> chunk = new ArrayList<>(FETCH_SIZE);
+
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == FETCH_SIZE) {
+                        write(mapper.apply(chunk), outputStream);
+                        chunk = new ArrayList<>(FETCH_SIZE);
+                    }
+                }
+
+                if (!chunk.isEmpty())
+                    write(mapper.apply(chunk), outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> void write(List<T> rows, OutputStream outputStream) throws IOException {
+        for (T row : rows) {
+            outputStream.write(objectMapper.writeValueAsBytes(row));
+            outputStream.write('\n');
+        }
+        outputStream.flush();
+        entityManager.clear();
+    }
+}
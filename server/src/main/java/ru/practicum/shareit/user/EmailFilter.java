@@ -0,0 +1,78 @@
+package ru.practicum.shareit.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Component
+public class EmailFilter {
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Object rebuildLock = new Object();
+    // null until the first rebuild: every email is then a probable hit and goes to the database
+    private volatile BloomFilter filter;
+    private List<String> addedDuringRebuild;
+
+    public EmailFilter(UserRepository userRepository,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${shareit.users.email-filter.expected-insertions}") long expectedInsertions,
+                       @Value("${shareit.users.email-filter.false-positive-rate}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // deleted and replaced emails cannot be cleared from a Bloom filter, so it is rebuilt periodically
+    @Scheduled(fixedDelayString = "${shareit.users.email-filter.rebuild-interval}",
+            initialDelayString = "${shareit.users.email-filter.rebuild-interval}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                addedDuringRebuild = new ArrayList<>();
+            }
+
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, 2 * userRepository.count()),
+                    falsePositiveRate);
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(rebuilt::put);
+                }
+            });
+
+            synchronized (this) {
+                addedDuringRebuild.forEach(rebuilt::put);
+                addedDuringRebuild = null;
+                filter = rebuilt;
+            }
+        }
+    }
+
+    public boolean mightContain(String email) {
+        BloomFilter current = filter;
+        return email == null || current == null || current.mightContain(email);
+    }
+
+    public synchronized void put(String email) {
+        if (addedDuringRebuild != null)
+            addedDuringRebuild.add(email);
+        if (filter != null)
+            filter.put(email);
+    }
+}
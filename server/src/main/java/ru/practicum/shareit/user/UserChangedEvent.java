@@ -0,0 +1,11 @@
+package ru.practicum.shareit.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserChangedEvent {
+    private long userId;
+    private boolean deleted;
+}
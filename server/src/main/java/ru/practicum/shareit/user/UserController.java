@@ -1,9 +1,13 @@
 package ru.practicum.shareit.user;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.exception.InvalidArgumentException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
@@ -40,4 +44,17 @@ public class UserController {
     public List<UserDto> findAll() {
         return userService.findAll();
     }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<List<UserDto>> findAllAfter(@RequestParam String cursor,
+                                                      @RequestParam(defaultValue = "20") int size) throws ValidationException {
+        return userService.findAllAfter(cursor, size).toResponseEntity();
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(userService.streamAll());
+    }
 }
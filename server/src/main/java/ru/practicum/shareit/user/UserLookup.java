@@ -0,0 +1,67 @@
+package ru.practicum.shareit.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Component
+public class UserLookup {
+    private final UserRepository userRepository;
+    // only existing users are cached, so a freshly created user is visible immediately
+    private final Cache<Long, UserDto> cache;
+
+    public UserLookup(UserRepository userRepository,
+                      @Value("${shareit.cache.users.maximum-size}") long maximumSize,
+                      @Value("${shareit.cache.users.expire-after-write}") Duration expireAfterWrite,
+                      MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    public boolean exists(long userId) {
+        return load(userId) != null;
+    }
+
+    // a detached copy for read paths; it may outlive a deletion made on another instance until the entry expires
+    public Optional<User> find(long userId) {
+        return Optional.ofNullable(load(userId))
+                .map(UserMapper::toUser);
+    }
+
+    // reads through to the database for writes: a user deleted on another instance is reported as missing
+    // instead of failing the insert on a foreign key, and the local entry is refreshed either way
+    public Optional<User> fetch(long userId) {
+        Optional<User> user = userRepository.findById(userId);
+        if (user.isPresent())
+            cache.put(userId, UserMapper.toUserDto(user.get()));
+        else
+            cache.invalidate(userId);
+        return user;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        cache.invalidate(event.getUserId());
+    }
+
+    private UserDto load(long userId) {
+        return cache.get(userId, id -> userRepository.findById(id)
+                .map(UserMapper::toUserDto)
+                .orElse(null));
+    }
+}
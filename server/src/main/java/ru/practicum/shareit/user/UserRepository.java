@@ -1,10 +1,32 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.stream.NdjsonStreamer;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     int countAllByEmail(String email);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "" + NdjsonStreamer.FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    @Query("select u from User u where u.id > :afterId order by u.id")
+    List<User> findAllAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "" + NdjsonStreamer.FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAll();
 }
@@ -1,9 +1,18 @@
 package ru.practicum.shareit.user;
 
 import lombok.AllArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.exception.InvalidArgumentException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.stream.NdjsonStreamer;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -13,8 +22,12 @@ import java.util.List;
 @Service
 @AllArgsConstructor
 public class UserService {
+    private static final String EMAIL_CONSTRAINT = "uq_email";
 
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EmailFilter emailFilter;
+    private final NdjsonStreamer ndjsonStreamer;
 
     public UserDto getUser(long userId) throws NotFoundException {
         return UserMapper.toUserDto(userRepository
@@ -24,7 +37,9 @@ public class UserService {
 
     public UserDto addUser(UserDto userDto) throws InvalidArgumentException {
         checkEmail(userDto);
-        return UserMapper.toUserDto(userRepository.save(UserMapper.toUser(userDto)));
+        UserDto addedUserDto = UserMapper.toUserDto(save(UserMapper.toUser(userDto)));
+        emailFilter.put(addedUserDto.getEmail());
+        return addedUserDto;
     }
 
     public UserDto patchUser(long userId, UserDto userDto) throws InvalidArgumentException {
@@ -37,19 +52,55 @@ public class UserService {
         if (userDto.getEmail() != null)
             userToPatch.setEmail(userDto.getEmail());
 
-        return UserMapper.toUserDto(userRepository.save(userToPatch));
+        UserDto patchedUserDto = UserMapper.toUserDto(save(userToPatch));
+        emailFilter.put(patchedUserDto.getEmail());
+        eventPublisher.publishEvent(new UserChangedEvent(userId, false));
+        return patchedUserDto;
     }
 
     public void deleteUser(long userId) {
         userRepository.deleteById(userId);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, true));
     }
 
     public List<UserDto> findAll() {
         return UserMapper.toUserDtoList(userRepository.findAll());
     }
 
+    public CursorPage<UserDto> findAllAfter(String cursor, int size) throws ValidationException {
+        if (size < 1)
+            throw new ValidationException("Ошибка пагинации");
+
+        Cursor after = Cursor.decode(cursor);
+        List<User> users = userRepository.findAllAfter(after == null ? 0 : after.getId(), PageRequest.of(0, size + 1));
+
+        return CursorPage.of(users, size, user -> Cursor.encode(user.getId()), UserMapper::toUserDtoList);
+    }
+
+    public StreamingResponseBody streamAll() {
+        return ndjsonStreamer.stream(userRepository::streamAll, UserMapper::toUserDtoList);
+    }
+
+    // the count runs only on a probable hit, a definitely new email goes straight to the unique constraint
     private void checkEmail(UserDto userDto) throws InvalidArgumentException {
-        if (userRepository.countAllByEmail(userDto.getEmail()) > 1)
+        if (emailFilter.mightContain(userDto.getEmail()) && userRepository.countAllByEmail(userDto.getEmail()) > 0)
             throw new InvalidArgumentException("Пользователь с такой почтой уже существует");
     }
+
+    private User save(User user) throws InvalidArgumentException {
+        try {
+            return userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (EMAIL_CONSTRAINT.equalsIgnoreCase(violatedConstraintName(e)))
+                throw new InvalidArgumentException("Пользователь с такой почтой уже существует");
+            throw e;
+        }
+    }
+
+    private static String violatedConstraintName(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+            if (cause instanceof ConstraintViolationException)
+                return ((ConstraintViolationException) cause).getConstraintName();
+        return null;
+    }
 }
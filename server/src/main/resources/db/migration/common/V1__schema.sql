@@ -47,4 +47,40 @@ CREATE TABLE IF NOT EXISTS comments
     item_id   BIGINT REFERENCES items (id) ON DELETE CASCADE,
     author_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
     CONSTRAINT pk_comments PRIMARY KEY (id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS request_matches
+(
+    request_id BIGINT REFERENCES requests (id) ON DELETE CASCADE,
+    item_id    BIGINT REFERENCES items (id) ON DELETE CASCADE,
+    score      DOUBLE PRECISION            NOT NULL,
+    created    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_request_matches PRIMARY KEY (request_id, item_id)
+);
+
+CREATE SEQUENCE IF NOT EXISTS outbox_events_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_events
+(
+    id           BIGINT                      NOT NULL,
+    event_type   VARCHAR(32)                 NOT NULL,
+    aggregate_id BIGINT                      NOT NULL,
+    payload      TEXT                        NOT NULL,
+    created      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id)
+);
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS archived BOOLEAN DEFAULT FALSE NOT NULL;
+
+CREATE INDEX IF NOT EXISTS ix_comments_item_id ON comments (item_id);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_id_start_end ON bookings (item_id, start_date, end_date);
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_id_start_date ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_id_status_start_date ON bookings (booker_id, status, start_date DESC);
+CREATE INDEX IF NOT EXISTS ix_items_owner_id ON items (owner_id);
+CREATE INDEX IF NOT EXISTS ix_bookings_archived_end_date ON bookings (archived, end_date);
+CREATE INDEX IF NOT EXISTS ix_items_request_id ON items (request_id);
+CREATE INDEX IF NOT EXISTS ix_requests_requester_id_created ON requests (requester_id, created);
+CREATE INDEX IF NOT EXISTS ix_requests_created_id ON requests (created, id);
+CREATE INDEX IF NOT EXISTS ix_request_matches_item_id ON request_matches (item_id);
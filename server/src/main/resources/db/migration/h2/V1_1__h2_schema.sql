@@ -0,0 +1,3 @@
+CREATE SEQUENCE IF NOT EXISTS items_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE INDEX IF NOT EXISTS ix_items_available ON items (is_available);
@@ -0,0 +1,6 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE items ALTER COLUMN id SET INCREMENT BY 50;
+
+CREATE INDEX IF NOT EXISTS ix_items_name_trgm ON items USING GIN (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS ix_items_description_trgm ON items USING GIN (lower(description) gin_trgm_ops);
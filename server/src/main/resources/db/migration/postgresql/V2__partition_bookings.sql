@@ -0,0 +1,40 @@
+DO $$
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('bookings')) = 'p' THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE bookings RENAME TO bookings_unpartitioned;
+    ALTER TABLE bookings_unpartitioned RENAME CONSTRAINT pk_bookings TO pk_bookings_unpartitioned;
+
+    CREATE TABLE bookings
+    (
+        id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+        start_date TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+        end_date   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+        status     VARCHAR(10)                             NOT NULL,
+        item_id    BIGINT REFERENCES items (id) ON DELETE CASCADE,
+        booker_id  BIGINT REFERENCES users (id) ON DELETE CASCADE,
+        version    BIGINT  DEFAULT 0                       NOT NULL,
+        archived   BOOLEAN DEFAULT FALSE                   NOT NULL,
+        CONSTRAINT pk_bookings PRIMARY KEY (id, archived, start_date)
+    ) PARTITION BY LIST (archived);
+
+    CREATE TABLE bookings_archive PARTITION OF bookings FOR VALUES IN (TRUE);
+    CREATE TABLE bookings_active PARTITION OF bookings FOR VALUES IN (FALSE) PARTITION BY RANGE (start_date);
+    CREATE TABLE bookings_active_default PARTITION OF bookings_active DEFAULT;
+
+    INSERT INTO bookings (id, start_date, end_date, status, item_id, booker_id, version, archived)
+    SELECT id, start_date, end_date, status, item_id, booker_id, version, archived
+    FROM bookings_unpartitioned;
+
+    PERFORM setval(pg_get_serial_sequence('bookings', 'id'), COALESCE((SELECT MAX(id) FROM bookings), 0) + 1, false);
+
+    DROP TABLE bookings_unpartitioned;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_id_start_end ON bookings (item_id, start_date, end_date);
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_id_start_date ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_id_status_start_date ON bookings (booker_id, status, start_date DESC);
+CREATE INDEX IF NOT EXISTS ix_bookings_archived_end_date ON bookings (archived, end_date);
@@ -0,0 +1,232 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingSummaryCache;
+import ru.practicum.shareit.booking.ItemLocks;
+import ru.practicum.shareit.booking.dto.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.stream.NdjsonStreamer;
+import ru.practicum.shareit.user.UserLookup;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+public class ConcurrentUpdateTest {
+    private static final int THREADS = 8;
+    private static final AtomicInteger USER_COUNTER = new AtomicInteger();
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserLookup userLookup;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NdjsonStreamer ndjsonStreamer;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+
+    @Autowired
+    private BookingSummaryCache bookingSummaryCache;
+
+    @Test
+    public void staleItemWriteRejectedTest() {
+        Item item = createItem(createUser());
+
+        Item firstCopy = itemRepository.findById(item.getId()).orElseThrow();
+        Item secondCopy = itemRepository.findById(item.getId()).orElseThrow();
+
+        firstCopy.setName("first");
+        itemRepository.save(firstCopy);
+
+        secondCopy.setName("second");
+        Assertions.assertThrows(ObjectOptimisticLockingFailureException.class, () -> itemRepository.save(secondCopy));
+        Assertions.assertEquals("first", itemRepository.findById(item.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void staleBookingWriteRejectedTest() {
+        User owner = createUser();
+        Booking booking = createBooking(createItem(owner), createUser());
+
+        Booking firstCopy = bookingRepository.findById(booking.getId()).orElseThrow();
+        Booking secondCopy = bookingRepository.findById(booking.getId()).orElseThrow();
+
+        firstCopy.setStatus(BookingStatus.APPROVED);
+        bookingRepository.save(firstCopy);
+
+        secondCopy.setStatus(BookingStatus.REJECTED);
+        Assertions.assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingRepository.save(secondCopy));
+        Assertions.assertEquals(BookingStatus.APPROVED, bookingRepository.findStatusById(booking.getId()));
+    }
+
+    @Test
+    public void concurrentItemPatchesTest() throws Exception {
+        User owner = createUser();
+        Item item = createItem(owner);
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 20; i++) {
+                ItemDto itemDto = new ItemDto();
+                itemDto.setDescription("thread " + thread + " patch " + i);
+                try {
+                    itemService.patchItem(item.getId(), itemDto, owner.getId());
+                    applied.incrementAndGet();
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    conflicts.incrementAndGet();
+                }
+            }
+        });
+
+        Item patchedItem = itemRepository.findById(item.getId()).orElseThrow();
+        Assertions.assertEquals(THREADS * 20, applied.get() + conflicts.get());
+        Assertions.assertEquals(applied.get(), patchedItem.getVersion());
+    }
+
+    @Test
+    public void concurrentApprovalsOnTwoInstancesTest() throws Exception {
+        BookingService otherInstance = new BookingService(bookingRepository, userLookup, itemRepository,
+                eventPublisher, ndjsonStreamer, new ItemLocks(1), outbox, transactionTemplate,
+                bookingSummaryCache);
+        User owner = createUser();
+        Booking booking = createBooking(createItem(owner), createUser());
+        List<Boolean> decisions = new ArrayList<>();
+        AtomicInteger rejectedCalls = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            BookingService service = thread % 2 == 0 ? bookingService : otherInstance;
+            boolean approved = thread % 4 < 2;
+            try {
+                service.patchBooking(booking.getId(), approved, owner.getId());
+                synchronized (decisions) {
+                    decisions.add(approved);
+                }
+            } catch (ValidationException | ObjectOptimisticLockingFailureException e) {
+                rejectedCalls.incrementAndGet();
+            }
+        });
+
+        Assertions.assertEquals(1, decisions.size());
+        Assertions.assertEquals(THREADS - 1, rejectedCalls.get());
+        Assertions.assertEquals(decisions.get(0) ? BookingStatus.APPROVED : BookingStatus.REJECTED,
+                bookingRepository.findStatusById(booking.getId()));
+    }
+
+    @Test
+    public void overlappingApprovalsOnTwoInstancesTest() throws Exception {
+        BookingService otherInstance = new BookingService(bookingRepository, userLookup, itemRepository,
+                eventPublisher, ndjsonStreamer, new ItemLocks(1), outbox, transactionTemplate,
+                bookingSummaryCache);
+        User owner = createUser();
+        Item item = createItem(owner);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++)
+            bookings.add(createBooking(item, createUser()));
+        AtomicInteger approvedCalls = new AtomicInteger();
+        AtomicInteger rejectedCalls = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            BookingService service = thread % 2 == 0 ? bookingService : otherInstance;
+            try {
+                service.patchBooking(bookings.get(thread).getId(), true, owner.getId());
+                approvedCalls.incrementAndGet();
+            } catch (ValidationException e) {
+                rejectedCalls.incrementAndGet();
+            }
+        });
+
+        long approved = bookings.stream()
+                .filter(booking -> bookingRepository.findStatusById(booking.getId()) == BookingStatus.APPROVED)
+                .count();
+        Assertions.assertEquals(1, approvedCalls.get());
+        Assertions.assertEquals(THREADS - 1, rejectedCalls.get());
+        Assertions.assertEquals(1, approved);
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+
+            startSignal.countDown();
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private User createUser() {
+        int number = USER_COUNTER.incrementAndGet();
+        return userRepository.save(new User(0, "user" + number, "concurrent" + number + "@mail.ru"));
+    }
+
+    private Item createItem(User owner) {
+        return itemRepository.save(new Item(0, "item", "concurrent item", true, owner, null));
+    }
+
+    private Booking createBooking(Item item, User booker) {
+        Booking booking = new Booking(0, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        return bookingRepository.save(booking);
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.request.RequestMatchRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// H2 cannot index an infix LIKE, so QueryPlanTest allows the text searches to scan items;
+// this test checks that on Postgres they go through the pg_trgm indexes instead.
+// Point SHAREIT_PLAN_POSTGRES_URL at a throwaway database, the migrations run against it.
+@EnabledIfEnvironmentVariable(named = "SHAREIT_PLAN_POSTGRES_URL", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.datasource.driverClassName=org.postgresql.Driver",
+        "spring.datasource.url=${SHAREIT_PLAN_POSTGRES_URL}",
+        "spring.datasource.username=${SHAREIT_PLAN_POSTGRES_USERNAME:postgres}",
+        "spring.datasource.password=${SHAREIT_PLAN_POSTGRES_PASSWORD:}",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.QueryPlanTest$SqlRecorder"
+})
+public class PostgresQueryPlanTest {
+    private static final int USERS = 500;
+    private static final int ITEMS = 20_000;
+    private static final String TEXT = "item4321";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private RequestMatchRepository requestMatchRepository;
+
+    private final List<String> violations = new ArrayList<>();
+
+    @BeforeEach
+    public void seed() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items", Long.class) < ITEMS) {
+            List<Object[]> users = new ArrayList<>(USERS);
+            for (int i = 1; i <= USERS; i++)
+                users.add(new Object[]{"user" + i, "user" + i + "@plan.ru"});
+            jdbcTemplate.batchUpdate("INSERT INTO users (name, email) VALUES (?, ?)", users);
+
+            long firstUserId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+            List<Object[]> items = new ArrayList<>(ITEMS);
+            for (int i = 1; i <= ITEMS; i++)
+                items.add(new Object[]{"Item" + i, "description" + i, i % 4 != 0, firstUserId + i % USERS});
+            jdbcTemplate.batchUpdate("INSERT INTO items (name, description, is_available, owner_id) " +
+                    "VALUES (?, ?, ?, ?)", items);
+            jdbcTemplate.execute("VACUUM ANALYZE");
+        }
+    }
+
+    @Test
+    public void textSearchUsesTrigramIndexesTest() {
+        PageRequest page = PageRequest.of(0, 20);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            check("ItemRepository.searchAvailableByText(String)",
+                    () -> itemRepository.searchAvailableByText(TEXT), TEXT, TEXT);
+            check("ItemRepository.searchAvailableByText(String,Pageable)",
+                    () -> itemRepository.searchAvailableByText(TEXT, page), TEXT, TEXT, 20);
+            check("ItemRepository.searchAvailableByTextAfter(String,long,Pageable)",
+                    () -> itemRepository.searchAvailableByTextAfter(TEXT, 100, page), 100L, TEXT, TEXT, 20);
+            check("ItemRepository.streamAvailableByText(String)",
+                    () -> consume(itemRepository.streamAvailableByText(TEXT)), TEXT, TEXT);
+            check("RequestMatchRepository.findCandidateItems(String,long,Pageable)",
+                    () -> requestMatchRepository.findCandidateItems(TEXT, 7, PageRequest.of(0, 200)),
+                    7L, TEXT, TEXT, 200);
+
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertTrue(violations.isEmpty(), String.join("\n", violations));
+    }
+
+    // only the search itself is explained, parameters are bound in the order the generated sql declares them
+    private void check(String method, Runnable invocation, Object... parameters) {
+        QueryPlanTest.SqlRecorder.STATEMENTS.clear();
+        invocation.run();
+
+        for (String sql : new ArrayList<>(QueryPlanTest.SqlRecorder.STATEMENTS)) {
+            if (!sql.contains("from items"))
+                continue;
+
+            String plan = explain(sql, parameters);
+            if (!plan.contains("ix_items_name_trgm") || !plan.contains("ix_items_description_trgm")
+                    || plan.contains("Seq Scan on items"))
+                violations.add(method + " does not use the trigram indexes:\n" + plan);
+        }
+    }
+
+    private String explain(String sql, Object[] parameters) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int count = (int) sql.chars().filter(c -> c == '?').count();
+                for (int i = 0; i < count; i++)
+                    statement.setObject(i + 1, parameters[i]);
+
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next())
+                        plan.append(resultSet.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private void consume(Stream<?> stream) {
+        try (stream) {
+            stream.forEach(row -> {
+            });
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingRepositoryCustom;
+import ru.practicum.shareit.booking.dto.BookingStatus;
+import ru.practicum.shareit.booking.dto.State;
+import ru.practicum.shareit.comment.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.RequestMatchRepository;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query_plans",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.QueryPlanTest$SqlRecorder"
+})
+public class QueryPlanTest {
+    private static final int USERS = 500;
+    private static final int REQUESTS = 2_000;
+    private static final int ITEMS = 5_000;
+    private static final int BOOKINGS = 50_000;
+    private static final int COMMENTS = 5_000;
+    private static final int MATCHES = 5_000;
+
+    private static final Set<String> LARGE_TABLES = Set.of("BOOKINGS", "ITEMS", "REQUESTS", "COMMENTS",
+            "REQUEST_MATCHES");
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* PUBLIC\\.([A-Z0-9_]+)\\.tableScan \\*/");
+    private static final Pattern INDEX_LOOKUP = Pattern.compile("/\\* PUBLIC\\.([A-Z0-9_]+)(?::[^*]*)? \\*/");
+
+    // H2 has no index for an infix LIKE, the text searches are checked on Postgres by PostgresQueryPlanTest
+    private static final Map<String, String> ALLOWED_SCANS = Map.of(
+            "ItemRepository.searchAvailableByText(String)", "ITEMS",
+            "ItemRepository.searchAvailableByText(String,Pageable)", "ITEMS",
+            "ItemRepository.searchAvailableByTextAfter(String,long,Pageable)", "ITEMS",
+            "ItemRepository.streamAvailableByText(String)", "ITEMS",
+            "ItemRequestRepository.findAllRequestsExceptUserId(long,Pageable)", "REQUESTS",
+            "ItemRequestRepository.streamOpenRequests()", "REQUESTS",
+            "RequestMatchRepository.findCandidateItems(String,long,Pageable)", "ITEMS"
+    );
+
+    private static final List<Class<?>> REPOSITORIES = List.of(ItemRepository.class, BookingRepository.class,
+            ItemRequestRepository.class, CommentRepository.class, RequestMatchRepository.class, UserRepository.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private RequestMatchRepository requestMatchRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Set<String> covered = new HashSet<>();
+    private final List<String> violations = new ArrayList<>();
+    private Map<String, IndexInfo> indexes;
+
+    @BeforeEach
+    public void seed() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings", Long.class) == 0) {
+            LocalDateTime now = LocalDateTime.now();
+            batch("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", USERS,
+                    i -> new Object[]{i, "user" + i, "user" + i + "@plan.ru"});
+            batch("INSERT INTO requests (id, description, created, requester_id) VALUES (?, ?, ?, ?)", REQUESTS,
+                    i -> new Object[]{i, "request" + i, Timestamp.valueOf(now.minusHours(i)), 1 + i % USERS});
+            batch("INSERT INTO items (id, name, description, is_available, owner_id, request_id) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)", ITEMS,
+                    i -> new Object[]{i, "item" + i, "description" + i, i % 4 != 0, 1 + i % USERS,
+                            i % 5 == 0 ? 1 + i % REQUESTS : null});
+            batch("INSERT INTO bookings (id, start_date, end_date, status, item_id, booker_id, archived) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?)", BOOKINGS,
+                    i -> new Object[]{i, Timestamp.valueOf(now.plusDays(i % 400 - 300)),
+                            Timestamp.valueOf(now.plusDays(i % 400 - 299)), BookingStatus.values()[i % 4].name(),
+                            1 + i % ITEMS, 1 + (i * 7) % USERS, i % 400 < 150});
+            batch("INSERT INTO comments (id, text, created, item_id, author_id) VALUES (?, ?, ?, ?, ?)", COMMENTS,
+                    i -> new Object[]{i, "comment" + i, Timestamp.valueOf(now.minusDays(i % 100)), 1 + i % ITEMS,
+                            1 + i % USERS});
+            batch("INSERT INTO request_matches (request_id, item_id, score, created) VALUES (?, ?, ?, ?)", MATCHES,
+                    i -> new Object[]{1 + i % REQUESTS, i, (i % 100) / 100.0, Timestamp.valueOf(now)});
+            jdbcTemplate.execute("ANALYZE");
+        }
+
+        indexes = new HashMap<>();
+        jdbcTemplate.query("SELECT i.index_name, i.table_name, i.index_type_name, i.is_generated, c.column_name " +
+                "FROM information_schema.indexes i JOIN information_schema.index_columns c " +
+                "ON c.index_schema = i.index_schema AND c.index_name = i.index_name " +
+                "WHERE i.index_schema = 'PUBLIC' AND c.ordinal_position = 1", (ResultSet row) -> {
+                    indexes.put(row.getString(1), new IndexInfo(row.getString(2), row.getString(5),
+                            row.getBoolean(4) && "INDEX".equals(row.getString(3))));
+                });
+    }
+
+    @Test
+    public void repositoryQueriesUseIndexesTest() {
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest page = PageRequest.of(0, 20);
+        Cursor cursor = new Cursor(now.plusDays(10), 40_000L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            check("ItemRepository.findAllByOwnerId(long)", () -> itemRepository.findAllByOwnerId(7));
+            check("ItemRepository.findLastAndNextBookingsByItemIds(Collection,BookingStatus,LocalDateTime)",
+                    () -> itemRepository.findLastAndNextBookingsByItemIds(List.of(7L, 8L, 9L),
+                            BookingStatus.APPROVED, now));
+            check("ItemRepository.findBookingByItemIdAndBookerId(long,long)",
+                    () -> itemRepository.findBookingByItemIdAndBookerId(7, 50));
+            check("ItemRepository.lockById(long)", () -> itemRepository.lockById(7));
+            check("ItemRepository.lockAllByIds(Collection)", () -> itemRepository.lockAllByIds(List.of(7L, 8L)));
+            check("ItemRepository.findRequestById(long)", () -> itemRepository.findRequestById(7));
+            check("ItemRepository.findRequestsByIds(Collection)",
+                    () -> itemRepository.findRequestsByIds(List.of(7L, 8L)));
+            check("ItemRepository.searchAvailableByText(String)",
+                    () -> itemRepository.searchAvailableByText("item7"));
+            check("ItemRepository.searchAvailableByText(String,Pageable)",
+                    () -> itemRepository.searchAvailableByText("item7", page));
+            check("ItemRepository.findAllByOwnerIdAfter(long,long,Pageable)",
+                    () -> itemRepository.findAllByOwnerIdAfter(7, 100, page));
+            check("ItemRepository.searchAvailableByTextAfter(String,long,Pageable)",
+                    () -> itemRepository.searchAvailableByTextAfter("item7", 100, page));
+            check("ItemRepository.findFreeAfter(long,BookingStatus,LocalDateTime,LocalDateTime,Pageable)",
+                    () -> itemRepository.findFreeAfter(100, BookingStatus.APPROVED, now, now.plusDays(1), page));
+            check("ItemRepository.streamAllByOwnerId(long)", () -> consume(itemRepository.streamAllByOwnerId(7)));
+            check("ItemRepository.streamAvailableByText(String)",
+                    () -> consume(itemRepository.streamAvailableByText("item7")));
+
+            check("BookingRepository.existsOverlapping(long,long,BookingStatus,LocalDateTime,LocalDateTime)",
+                    () -> bookingRepository.existsOverlapping(7, 0, BookingStatus.APPROVED, now, now.plusDays(1)));
+            check("BookingRepository.findStatusById(long)", () -> bookingRepository.findStatusById(7));
+            check("BookingRepository.findItemIdsByIds(Collection)",
+                    () -> bookingRepository.findItemIdsByIds(List.of(7L, 8L)));
+            check("BookingRepository.findAllWithItemByIds(Collection)",
+                    () -> bookingRepository.findAllWithItemByIds(List.of(7L, 8L)));
+            check("BookingRepository.findPeriodsOverlapping(Collection,BookingStatus,LocalDateTime,LocalDateTime)",
+                    () -> bookingRepository.findPeriodsOverlapping(List.of(7L, 8L), BookingStatus.APPROVED, now,
+                            now.plusDays(1)));
+            check("BookingRepository.archiveFinishedBefore(LocalDateTime,int)",
+                    () -> bookingRepository.archiveFinishedBefore(now.minusDays(90), 100));
+
+            for (State state : State.values()) {
+                check("BookingRepositoryCustom.findBookerBookings(long,State,LocalDateTime,Cursor,int)",
+                        () -> bookingRepository.findBookerBookings(7, state, now, cursor, 20));
+                check("BookingRepositoryCustom.findOwnerBookings(long,State,LocalDateTime,Cursor,int)",
+                        () -> bookingRepository.findOwnerBookings(7, state, now, cursor, 20));
+                check("BookingRepositoryCustom.findBookerBookings(long,State,LocalDateTime,int,Integer)",
+                        () -> bookingRepository.findBookerBookings(7, state, now, 20, 20));
+                check("BookingRepositoryCustom.findOwnerBookings(long,State,LocalDateTime,int,Integer)",
+                        () -> bookingRepository.findOwnerBookings(7, state, now, 20, 20));
+                check("BookingRepositoryCustom.streamBookerBookings(long,State,LocalDateTime)",
+                        () -> consume(bookingRepository.streamBookerBookings(7, state, now)));
+                check("BookingRepositoryCustom.streamOwnerBookings(long,State,LocalDateTime)",
+                        () -> consume(bookingRepository.streamOwnerBookings(7, state, now)));
+            }
+            check("BookingRepositoryCustom.countBookerBookingsByState(long,LocalDateTime)",
+                    () -> bookingRepository.countBookerBookingsByState(7, now));
+            check("BookingRepositoryCustom.countOwnerBookingsByState(long,LocalDateTime)",
+                    () -> bookingRepository.countOwnerBookingsByState(7, now));
+
+            check("ItemRequestRepository.findAllRequestsByUserId(long)",
+                    () -> itemRequestRepository.findAllRequestsByUserId(7));
+            check("ItemRequestRepository.getItemsByRequestId(long)",
+                    () -> itemRequestRepository.getItemsByRequestId(7));
+            check("ItemRequestRepository.findAllRequestsByUserId(long,Pageable)",
+                    () -> itemRequestRepository.findAllRequestsByUserId(7, page));
+            check("ItemRequestRepository.findAllRequestsExceptUserId(long,Pageable)",
+                    () -> itemRequestRepository.findAllRequestsExceptUserId(7, page));
+            check("ItemRequestRepository.findFirstRequestsExceptUserId(long,Pageable)",
+                    () -> itemRequestRepository.findFirstRequestsExceptUserId(7, page));
+            check("ItemRequestRepository.findRequestsExceptUserIdAfter(long,LocalDateTime,long,Pageable)",
+                    () -> itemRequestRepository.findRequestsExceptUserIdAfter(7, now.minusHours(100), 100, page));
+            check("ItemRequestRepository.findFeed(Pageable)",
+                    () -> itemRequestRepository.findFeed(PageRequest.of(0, 100)));
+            check("ItemRequestRepository.findItemsByRequesterId(long)",
+                    () -> itemRequestRepository.findItemsByRequesterId(7));
+            check("ItemRequestRepository.findItemsByRequests(List)",
+                    () -> itemRequestRepository.findItemsByRequests(
+                            itemRequestRepository.findAllById(List.of(7L, 8L))));
+
+            check("ItemRequestRepository.streamOpenRequests()",
+                    () -> consume(itemRequestRepository.streamOpenRequests()));
+
+            check("RequestMatchRepository.findAllByItemOwnerId(long,Pageable)",
+                    () -> requestMatchRepository.findAllByItemOwnerId(7, page));
+            check("RequestMatchRepository.findCandidateItems(String,long,Pageable)",
+                    () -> requestMatchRepository.findCandidateItems("item7", 7, PageRequest.of(0, 200)));
+            check("RequestMatchRepository.deleteAllByRequestId(long)",
+                    () -> requestMatchRepository.deleteAllByRequestId(7));
+
+            check("CommentRepository.findAllCommentsByItemId(long)",
+                    () -> commentRepository.findAllCommentsByItemId(7));
+            check("CommentRepository.findAllCommentsByItemIds(Collection)",
+                    () -> commentRepository.findAllCommentsByItemIds(List.of(7L, 8L)));
+
+            check("UserRepository.streamAllEmails()", () -> consume(userRepository.streamAllEmails()));
+            check("UserRepository.findAllAfter(long,Pageable)", () -> userRepository.findAllAfter(100, page));
+            check("UserRepository.streamAll()", () -> consume(userRepository.streamAll()));
+
+            status.setRollbackOnly();
+        });
+
+        Set<String> uncovered = new TreeSet<>(repositoryQueries());
+        uncovered.removeAll(covered);
+        Assertions.assertTrue(uncovered.isEmpty(), "Queries without a plan check: " + uncovered);
+        Assertions.assertTrue(violations.isEmpty(), String.join("\n", violations));
+    }
+
+    private void check(String method, Runnable invocation) {
+        covered.add(method);
+        SqlRecorder.STATEMENTS.clear();
+        invocation.run();
+
+        for (String sql : new ArrayList<>(SqlRecorder.STATEMENTS)) {
+            String plan = explain(sql);
+
+            Matcher scans = TABLE_SCAN.matcher(plan);
+            while (scans.find()) {
+                String table = scans.group(1);
+                if (LARGE_TABLES.contains(table) && !table.equals(ALLOWED_SCANS.get(method)))
+                    violations.add(method + " scans " + table + ":\n" + plan);
+            }
+
+            Matcher lookups = INDEX_LOOKUP.matcher(plan);
+            while (lookups.find()) {
+                IndexInfo index = indexes.get(lookups.group(1));
+                if (index != null && index.isForeignKeyIndex() && !hasExplicitIndex(index))
+                    violations.add(method + " relies on H2's implicit foreign key index on "
+                            + index.getTable() + "." + index.getColumn() + ":\n" + plan);
+            }
+        }
+    }
+
+    private boolean hasExplicitIndex(IndexInfo foreignKeyIndex) {
+        return indexes.values().stream()
+                .anyMatch(index -> !index.isForeignKeyIndex()
+                        && index.getTable().equals(foreignKeyIndex.getTable())
+                        && index.getColumn().equals(foreignKeyIndex.getColumn()));
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        });
+    }
+
+    private Set<String> repositoryQueries() {
+        Set<String> queries = new HashSet<>();
+        for (Class<?> repository : REPOSITORIES)
+            for (Method method : repository.getDeclaredMethods())
+                if (method.isAnnotationPresent(Query.class))
+                    queries.add(signature(method));
+        for (Method method : BookingRepositoryCustom.class.getDeclaredMethods())
+            queries.add(signature(method));
+        return queries;
+    }
+
+    private String signature(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName() +
+                Arrays.stream(method.getParameterTypes())
+                        .map(Class::getSimpleName)
+                        .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private void batch(String sql, int count, RowValues values) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++)
+            rows.add(values.get(i));
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    private void consume(Stream<?> stream) {
+        try (stream) {
+            stream.forEach(row -> {
+            });
+        }
+    }
+
+    private interface RowValues {
+        Object[] get(int i);
+    }
+
+    private static class IndexInfo {
+        private final String table;
+        private final String column;
+        private final boolean foreignKeyIndex;
+
+        IndexInfo(String table, String column, boolean foreignKeyIndex) {
+            this.table = table;
+            this.column = column;
+            this.foreignKeyIndex = foreignKeyIndex;
+        }
+
+        String getTable() {
+            return table;
+        }
+
+        String getColumn() {
+            return column;
+        }
+
+        boolean isForeignKeyIndex() {
+            return foreignKeyIndex;
+        }
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+
+public class BookingArchiverTest {
+    @Test
+    public void archiveInBatchesTest() {
+        BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+        BookingArchiver bookingArchiver = new BookingArchiver(bookingRepository,
+                Mockito.mock(PlatformTransactionManager.class), Duration.ofDays(90), 2);
+
+        Mockito
+                .when(bookingRepository.archiveFinishedBefore(any(LocalDateTime.class), eq(2)))
+                .thenReturn(2, 2, 1);
+
+        bookingArchiver.archive();
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(90);
+        Mockito.verify(bookingRepository, Mockito.times(3)).archiveFinishedBefore(
+                argThat(time -> !time.isAfter(cutoff) && time.isAfter(cutoff.minusMinutes(1))), eq(2));
+    }
+}
@@ -0,0 +1,154 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Not picked up by the regular test run: mvn -pl server test -Dtest=BookingContentionBenchmark
+@SpringBootTest
+public class BookingContentionBenchmark {
+    private static final int THREADS = 16;
+    private static final int BOOKINGS_PER_THREAD = 50;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private static final AtomicInteger USER_COUNTER = new AtomicInteger();
+
+    @Test
+    public void overlappingApprovalsTest() throws Exception {
+        User owner = createUser();
+        Item item = createItem(owner);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++)
+            bookingIds.add(createBooking(item, createUser(), start, start.plusHours(2)).getId());
+
+        AtomicInteger approved = new AtomicInteger();
+        runConcurrently(THREADS, thread -> {
+            try {
+                bookingService.patchBooking(bookingIds.get(thread), true, owner.getId());
+                approved.incrementAndGet();
+            } catch (ValidationException e) {
+                // the overlapping booking has been approved by another thread
+            }
+            return null;
+        });
+
+        long approvedInDb = bookingIds.stream()
+                .filter(id -> bookingRepository.findStatusById(id) == BookingStatus.APPROVED)
+                .count();
+        Assertions.assertEquals(1, approved.get());
+        Assertions.assertEquals(1, approvedInDb);
+    }
+
+    @Test
+    public void contentionTest() throws Exception {
+        User owner = createUser();
+        Item hotItem = createItem(owner);
+        List<Item> items = new ArrayList<>();
+        List<User> bookers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            items.add(createItem(owner));
+            bookers.add(createUser());
+        }
+
+        long hotItemNanos = runConcurrently(THREADS, thread ->
+                bookAndApprove(hotItem, owner, bookers.get(thread), thread));
+        long spreadItemsNanos = runConcurrently(THREADS, thread ->
+                bookAndApprove(items.get(thread), owner, bookers.get(thread), thread));
+
+        int operations = THREADS * BOOKINGS_PER_THREAD;
+        System.out.printf("Booking contention, %d threads x %d create+approve:%n", THREADS, BOOKINGS_PER_THREAD);
+        System.out.printf("  one hot item:   %8.1f ops/s%n", operations * 1e9 / hotItemNanos);
+        System.out.printf("  item per thread:%8.1f ops/s%n", operations * 1e9 / spreadItemsNanos);
+    }
+
+    private Void bookAndApprove(Item item, User owner, User booker, int thread) throws Exception {
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+            LocalDateTime start = base.plusHours((long) (thread * BOOKINGS_PER_THREAD + i) * 2);
+            BookingDto bookingDto = new BookingDto();
+            bookingDto.setItemId(item.getId());
+            bookingDto.setStart(start);
+            bookingDto.setEnd(start.plusHours(1));
+
+            BookingDto created = bookingService.createBooking(bookingDto, booker.getId());
+            bookingService.patchBooking(created.getId(), true, owner.getId());
+        }
+        return null;
+    }
+
+    private long runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    startSignal.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+
+            long started = System.nanoTime();
+            startSignal.countDown();
+            for (Future<Void> future : futures)
+                future.get();
+            return System.nanoTime() - started;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private User createUser() {
+        int number = USER_COUNTER.incrementAndGet();
+        return userRepository.save(new User(0, "user" + number, "benchmark" + number + "@mail.ru"));
+    }
+
+    private Item createItem(User owner) {
+        return itemRepository.save(new Item(0, "item", "benchmark item", true, owner, null));
+    }
+
+    private Booking createBooking(Item item, User booker, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking(0, start, end);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        return bookingRepository.save(booking);
+    }
+
+    private interface ThreadTask {
+        Void run(int thread) throws Exception;
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -11,15 +12,19 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.exception.ControllerExceptionHandler;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @SpringBootTest
 public class BookingControllerTest {
@@ -170,4 +175,55 @@ public class BookingControllerTest {
                         .header("X-Sharer-User-Id", 1L))
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
+
+    @Test
+    public void getOwnerBookingsAfterTest() throws Exception {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(1L);
+        bookingDto.setStart(LocalDateTime.now().plusSeconds(2));
+        bookingDto.setEnd(LocalDateTime.now().plusSeconds(10));
+
+        Mockito
+                .when(bookingService.getOwnerBookingsAfter(State.ALL, 1L, "", 1))
+                .thenReturn(new CursorPage<>(List.of(bookingDto), "next"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/bookings/owner?cursor=&size=1")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(1)));
+    }
+
+    @Test
+    public void getOwnerBookingsSummaryTest() throws Exception {
+        Mockito
+                .when(bookingService.getOwnerBookingsSummary(1L))
+                .thenReturn(Map.of(State.ALL, 2L, State.WAITING, 1L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/bookings/owner/summary")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.ALL", Matchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.WAITING", Matchers.is(1)));
+    }
+
+    @Test
+    public void patchBookingsTest() throws Exception {
+        List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(1L, true), new BookingDecisionDto(2L, false));
+
+        Mockito
+                .when(bookingService.patchBookings(decisions, 1L))
+                .thenReturn(List.of(new BookingBatchResultDto(1L, null, "Вещь уже забронирована на это время"),
+                        new BookingBatchResultDto(2L, null, "Букинга с таким номером не существует")));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(decisions))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].bookingId", Matchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].error",
+                        Matchers.is("Букинга с таким номером не существует")));
+    }
 }
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+
+public class BookingPartitionMaintainerTest {
+    private JdbcTemplate jdbcTemplate;
+    private BookingPartitionMaintainer maintainer;
+
+    @BeforeEach
+    public void initialize() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        maintainer = new BookingPartitionMaintainer(jdbcTemplate, Mockito.mock(PlatformTransactionManager.class), 1);
+    }
+
+    @Test
+    public void skipNonPostgresTest() {
+        Mockito
+                .when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenReturn("H2");
+
+        maintainer.maintain();
+
+        Mockito.verify(jdbcTemplate, Mockito.never()).execute(anyString());
+    }
+
+    @Test
+    public void createMonthPartitionsTest() {
+        String thisMonth = "bookings_active_" + YearMonth.now().format(DateTimeFormatter.ofPattern("yyyy_MM"));
+        String nextMonth = "bookings_active_" + YearMonth.now().plusMonths(1)
+                .format(DateTimeFormatter.ofPattern("yyyy_MM"));
+
+        Mockito
+                .when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenReturn("PostgreSQL");
+        Mockito
+                .when(jdbcTemplate.queryForObject(startsWith("SELECT relkind"), eq(String.class)))
+                .thenReturn("p");
+        Mockito
+                .when(jdbcTemplate.queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class), eq(thisMonth)))
+                .thenReturn(true);
+        Mockito
+                .when(jdbcTemplate.queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class), eq(nextMonth)))
+                .thenReturn(false);
+
+        maintainer.maintain();
+
+        Mockito.verify(jdbcTemplate, Mockito.never()).execute(startsWith("CREATE TABLE " + thisMonth));
+        Mockito.verify(jdbcTemplate).execute(startsWith("CREATE TABLE " + nextMonth));
+        Mockito.verify(jdbcTemplate).execute(startsWith("ALTER TABLE bookings_active ATTACH PARTITION " + nextMonth));
+        Mockito.verify(jdbcTemplate, Mockito.times(1)).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    public void unpartitionedTableIsLeftAloneTest() {
+        Mockito
+                .when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenReturn("PostgreSQL");
+        Mockito
+                .when(jdbcTemplate.queryForObject(startsWith("SELECT relkind"), eq(String.class)))
+                .thenReturn("r");
+
+        maintainer.maintain();
+
+        Mockito.verify(jdbcTemplate, Mockito.never()).execute(anyString());
+        Mockito.verify(jdbcTemplate, Mockito.never())
+                .queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class), anyString());
+    }
+}
@@ -1,9 +1,16 @@
 package ru.practicum.shareit.booking;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingStatus;
 import ru.practicum.shareit.booking.dto.State;
@@ -11,22 +18,43 @@ import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemChangedEvent;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.stream.NdjsonStreamer;
+import ru.practicum.shareit.user.UserChangedEvent;
+import ru.practicum.shareit.user.UserLookup;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 
 public class BookingServiceTest {
     private BookingRepository bookingRepository;
     private UserRepository userRepository;
     private ItemRepository itemRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private Outbox outbox;
+    private UserLookup userLookup;
+    private BookingSummaryCache bookingSummaryCache;
     private BookingService bookingService;
 
     @BeforeEach
@@ -34,8 +62,16 @@ public class BookingServiceTest {
         bookingRepository = Mockito.mock(BookingRepository.class);
         userRepository = Mockito.mock(UserRepository.class);
         itemRepository = Mockito.mock(ItemRepository.class);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        outbox = Mockito.mock(Outbox.class);
 
-        bookingService = new BookingService(bookingRepository, userRepository, itemRepository);
+        userLookup = new UserLookup(userRepository, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        bookingSummaryCache = new BookingSummaryCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+        bookingService = new BookingService(bookingRepository, userLookup, itemRepository, eventPublisher,
+                new NdjsonStreamer(Mockito.mock(PlatformTransactionManager.class), Mockito.mock(EntityManager.class)),
+                new ItemLocks(16), outbox, new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)),
+                bookingSummaryCache);
     }
 
     @Test
@@ -70,6 +106,31 @@ public class BookingServiceTest {
         BookingDto bookingDto = BookingMapper.toBookingDto(booking);
 
         Assertions.assertEquals(bookingDto, bookingService.createBooking(bookingDto, 2L));
+        Mockito.verify(outbox).add(OutboxEventType.BOOKING_CREATED, 1L, bookingDto);
+    }
+
+    @Test
+    public void createBookingChecksBookerInDatabaseTest() throws NotFoundException {
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwner(new User(1L, "Owner", "owner@mail.ru"));
+        item.setAvailable(true);
+
+        Mockito
+                .when(itemRepository.findById(item.getId()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(userRepository.findById(2L))
+                .thenReturn(Optional.of(new User(2L, "booker", "booker@mail.ru")))
+                .thenReturn(Optional.empty());
+
+        bookingService.getCurrentUserBookingsSummary(2L);
+
+        BookingDto bookingDto = new BookingDto(0, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                null, null, 0, item.getId(), null);
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.createBooking(bookingDto, 2L));
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.getCurrentUserBookingsSummary(2L));
+        Mockito.verify(bookingRepository, Mockito.never()).save(any(Booking.class));
     }
 
     @Test
@@ -97,6 +158,10 @@ public class BookingServiceTest {
                 .when(bookingRepository.findById(1L))
                 .thenReturn(Optional.of(booking));
 
+        Mockito
+                .when(bookingRepository.findStatusById(1L))
+                .thenReturn(BookingStatus.WAITING);
+
         Mockito
                 .when(bookingRepository.save(booking))
                 .thenReturn(booking);
@@ -105,6 +170,79 @@ public class BookingServiceTest {
         bookingDto.setStatus(BookingStatus.APPROVED);
 
         Assertions.assertEquals(bookingDto, bookingService.patchBooking(1L, true, 1L));
+        Mockito.verify(eventPublisher).publishEvent(new ItemChangedEvent(1L));
+        Mockito.verify(eventPublisher).publishEvent(new BookingStatusChangedEvent(bookingDto));
+        Mockito.verify(outbox).add(OutboxEventType.BOOKING_APPROVED, 1L, bookingDto);
+    }
+
+    @Test
+    public void createOverlappingBookingTest() {
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwner(new User(1L, "Owner", "owner@mail.ru"));
+        item.setAvailable(true);
+
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setItemId(1L);
+        bookingDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(2));
+
+        Mockito
+                .when(itemRepository.findById(1L))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(userRepository.findById(2L))
+                .thenReturn(Optional.of(new User(2L, "booker", "booker@mail.ru")));
+        Mockito
+                .when(bookingRepository.existsOverlapping(1L, 0, BookingStatus.APPROVED,
+                        bookingDto.getStart(), bookingDto.getEnd()))
+                .thenReturn(true);
+
+        Assertions.assertThrows(ValidationException.class, () -> bookingService.createBooking(bookingDto, 2L));
+        InOrder inOrder = Mockito.inOrder(itemRepository, bookingRepository);
+        inOrder.verify(itemRepository).lockById(1L);
+        inOrder.verify(bookingRepository).existsOverlapping(1L, 0, BookingStatus.APPROVED,
+                bookingDto.getStart(), bookingDto.getEnd());
+        Mockito.verify(bookingRepository, Mockito.never()).save(any());
+    }
+
+    @Test
+    public void approveOverlappingBookingTest() {
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwner(new User(1L, "Owner", "owner@mail.ru"));
+
+        Booking booking = new Booking(2L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(new User(2L, "booker", "booker@mail.ru"));
+
+        Mockito
+                .when(bookingRepository.findById(2L))
+                .thenReturn(Optional.of(booking));
+        Mockito
+                .when(itemRepository.findById(1L))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(bookingRepository.findStatusById(2L))
+                .thenReturn(BookingStatus.WAITING);
+        Mockito
+                .when(bookingRepository.existsOverlapping(1L, 2L, BookingStatus.APPROVED,
+                        booking.getStart(), booking.getEnd()))
+                .thenReturn(true);
+
+        Assertions.assertThrows(ValidationException.class, () -> bookingService.patchBooking(2L, true, 1L));
+        Assertions.assertEquals(BookingStatus.WAITING, booking.getStatus());
+        InOrder inOrder = Mockito.inOrder(itemRepository, bookingRepository);
+        inOrder.verify(itemRepository).lockById(1L);
+        inOrder.verify(bookingRepository).existsOverlapping(1L, 2L, BookingStatus.APPROVED,
+                booking.getStart(), booking.getEnd());
+
+        Mockito
+                .when(bookingRepository.findStatusById(2L))
+                .thenReturn(BookingStatus.APPROVED);
+
+        Assertions.assertThrows(ValidationException.class, () -> bookingService.patchBooking(2L, false, 1L));
+        Mockito.verify(bookingRepository, Mockito.never()).save(any());
     }
 
     @Test
@@ -154,11 +292,8 @@ public class BookingServiceTest {
                 .when(userRepository.findById(2L))
                 .thenReturn(Optional.of(user));
         Mockito
-                .when(bookingRepository.findBookingsByBookerId(2L))
-                .thenReturn(List.of(booking));
-
-        Mockito
-                .when(bookingRepository.findBookingsByBookingIdsAndStatus(List.of(booking.getId()), BookingStatus.WAITING))
+                .when(bookingRepository.findBookerBookings(eq(2L), eq(State.WAITING), any(LocalDateTime.class),
+                        eq(0), isNull()))
                 .thenReturn(List.of(booking));
 
         Assertions.assertEquals(BookingMapper.toBookingDtos(List.of(booking)),
@@ -186,11 +321,8 @@ public class BookingServiceTest {
                 .when(userRepository.findById(1L))
                 .thenReturn(Optional.of(item.getOwner()));
         Mockito
-                .when(bookingRepository.findBookingsByItemOwnerId(1L))
-                .thenReturn(List.of(booking));
-
-        Mockito
-                .when(bookingRepository.findBookingsByBookingIdsAndStatus(List.of(booking.getId()), BookingStatus.WAITING))
+                .when(bookingRepository.findOwnerBookings(eq(1L), eq(State.WAITING), any(LocalDateTime.class),
+                        eq(0), isNull()))
                 .thenReturn(List.of(booking));
 
         Assertions.assertEquals(BookingMapper.toBookingDtos(List.of(booking)),
@@ -217,38 +349,237 @@ public class BookingServiceTest {
         Mockito
                 .when(userRepository.findById(1L))
                 .thenReturn(Optional.of(item.getOwner()));
-        Mockito
-                .when(bookingRepository.findBookingsByItemOwnerId(1L))
-                .thenReturn(List.of(booking));
-
         booking.setStatus(BookingStatus.REJECTED);
 
+        for (State state : State.values()) {
+            Mockito
+                    .when(bookingRepository.findOwnerBookings(eq(1L), eq(state), any(LocalDateTime.class),
+                            eq(0), isNull()))
+                    .thenReturn(List.of(booking));
+
+            Assertions.assertEquals(BookingMapper.toBookingDtos(List.of(booking)),
+                    bookingService.getOwnerBookings(state, 1L, null, null));
+        }
+
         Mockito
-                .when(bookingRepository.findBookingsByBookingIdsAndStatus(List.of(booking.getId()), BookingStatus.REJECTED))
+                .when(bookingRepository.findOwnerBookings(eq(1L), eq(State.ALL), any(LocalDateTime.class),
+                        eq(1), eq(2)))
                 .thenReturn(List.of(booking));
 
         Assertions.assertEquals(BookingMapper.toBookingDtos(List.of(booking)),
-                bookingService.getOwnerBookings(State.REJECTED, 1L, null, null));
+                bookingService.getOwnerBookings(State.ALL, 1L, 1, 2));
+        Assertions.assertThrows(ValidationException.class,
+                () -> bookingService.getOwnerBookings(State.ALL, 1L, -1, 2));
+        Assertions.assertThrows(ValidationException.class,
+                () -> bookingService.getOwnerBookings(State.ALL, 1L, 0, 0));
+    }
+
+    @Test
+    public void getOwnerBookingsAfterTest() throws ValidationException, NotFoundException {
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwner(new User(1L, "Owner", "owner@mail.ru"));
+
+        User user = new User(2L, "booker", "booker@mail.ru");
+
+        Booking booking = new Booking(2L, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3));
+        booking.setItem(item);
+        booking.setBooker(user);
+        Booking booking1 = new Booking(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        booking1.setItem(item);
+        booking1.setBooker(user);
 
         Mockito
-                .when(bookingRepository.findBookingsByBookingIdsCurrent(anyList(), any(LocalDateTime.class)))
-                .thenReturn(List.of(booking));
+                .when(userRepository.findById(1L))
+                .thenReturn(Optional.of(item.getOwner()));
+        Mockito
+                .when(bookingRepository.findOwnerBookings(eq(1L), eq(State.FUTURE), any(LocalDateTime.class),
+                        isNull(), eq(2)))
+                .thenReturn(List.of(booking, booking1));
 
-        Assertions.assertEquals(BookingMapper.toBookingDtos(List.of(booking)),
-                bookingService.getOwnerBookings(State.CURRENT, 1L, null, null));
+        CursorPage<BookingDto> page = bookingService.getOwnerBookingsAfter(State.FUTURE, 1L, "", 1);
+
+        Assertions.assertEquals(BookingMapper.toBookingDtos(List.of(booking)), page.getContent());
+        Assertions.assertEquals(new Cursor(booking.getStart(), booking.getId()), Cursor.decode(page.getNextCursor()));
 
         Mockito
-                .when(bookingRepository.findBookingsByBookingIdsPast(anyList(), any(LocalDateTime.class)))
-                .thenReturn(List.of(booking));
+                .when(bookingRepository.findOwnerBookings(eq(1L), eq(State.FUTURE), any(LocalDateTime.class),
+                        eq(Cursor.decode(page.getNextCursor())), eq(2)))
+                .thenReturn(List.of(booking1));
+
+        CursorPage<BookingDto> lastPage = bookingService.getOwnerBookingsAfter(State.FUTURE, 1L, page.getNextCursor(), 1);
+
+        Assertions.assertEquals(BookingMapper.toBookingDtos(List.of(booking1)), lastPage.getContent());
+        Assertions.assertNull(lastPage.getNextCursor());
+        Assertions.assertThrows(ValidationException.class,
+                () -> bookingService.getOwnerBookingsAfter(State.FUTURE, 1L, Cursor.encode(1L), 1));
+        Assertions.assertThrows(ValidationException.class,
+                () -> bookingService.getOwnerBookingsAfter(State.FUTURE, 1L, "", 0));
+    }
 
-        Assertions.assertEquals(BookingMapper.toBookingDtos(List.of(booking)),
-                bookingService.getOwnerBookings(State.PAST, 1L, null, null));
+    @Test
+    public void streamOwnerBookingsTest() throws NotFoundException, IOException {
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwner(new User(1L, "Owner", "owner@mail.ru"));
+
+        Booking booking = new Booking(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(new User(2L, "booker", "booker@mail.ru"));
 
         Mockito
-                .when(bookingRepository.findBookingsByBookingIdsFuture(anyList(), any(LocalDateTime.class)))
-                .thenReturn(List.of(booking));
+                .when(userRepository.findById(1L))
+                .thenReturn(Optional.of(item.getOwner()));
+        Mockito
+                .when(bookingRepository.streamOwnerBookings(eq(1L), eq(State.FUTURE), any(LocalDateTime.class)))
+                .thenReturn(Stream.of(booking));
 
-        Assertions.assertEquals(BookingMapper.toBookingDtos(List.of(booking)),
-                bookingService.getOwnerBookings(State.FUTURE, 1L, null, null));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        bookingService.streamOwnerBookings(State.FUTURE, 1L).writeTo(outputStream);
+
+        Assertions.assertTrue(outputStream.toString().startsWith("{\"id\":1,"));
+        Assertions.assertTrue(outputStream.toString().endsWith("}\n"));
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.streamOwnerBookings(State.ALL, 2L));
+    }
+
+    @Test
+    public void getCurrentUserBookingsSummaryTest() throws NotFoundException {
+        Map<State, Long> summary = Map.of(State.ALL, 3L, State.CURRENT, 1L, State.PAST, 1L,
+                State.FUTURE, 1L, State.WAITING, 1L, State.REJECTED, 0L);
+
+        Mockito
+                .when(userRepository.findById(1L))
+                .thenReturn(Optional.of(new User(1L, "booker", "booker@mail.ru")));
+        Mockito
+                .when(bookingRepository.countBookerBookingsByState(eq(1L), any(LocalDateTime.class)))
+                .thenReturn(summary);
+
+        Assertions.assertEquals(summary, bookingService.getCurrentUserBookingsSummary(1L));
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.getCurrentUserBookingsSummary(2L));
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.getOwnerBookingsSummary(2L));
+    }
+
+    @Test
+    public void bookingsSummaryIsCachedUntilBookingChangesTest() throws NotFoundException {
+        User owner = new User(1L, "owner", "owner@mail.ru");
+        User booker = new User(2L, "booker", "booker@mail.ru");
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwner(owner);
+        Booking booking = new Booking(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.APPROVED);
+
+        Mockito
+                .when(userRepository.findById(any(Long.class)))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(0).equals(1L) ? owner : booker));
+        Mockito
+                .when(bookingRepository.countBookerBookingsByState(eq(2L), any(LocalDateTime.class)))
+                .thenReturn(Map.of(State.ALL, 1L));
+        Mockito
+                .when(bookingRepository.countOwnerBookingsByState(eq(1L), any(LocalDateTime.class)))
+                .thenReturn(Map.of(State.ALL, 1L));
+
+        bookingService.getCurrentUserBookingsSummary(2L);
+        bookingService.getCurrentUserBookingsSummary(2L);
+        bookingService.getOwnerBookingsSummary(1L).put(State.ALL, 5L);
+        Assertions.assertEquals(1L, bookingService.getOwnerBookingsSummary(1L).get(State.ALL));
+        Mockito.verify(bookingRepository, Mockito.times(1)).countBookerBookingsByState(eq(2L), any(LocalDateTime.class));
+        Mockito.verify(bookingRepository, Mockito.times(1)).countOwnerBookingsByState(eq(1L), any(LocalDateTime.class));
+
+        bookingSummaryCache.onBookingStatusChanged(new BookingStatusChangedEvent(BookingMapper.toBookingDto(booking)));
+        bookingService.getCurrentUserBookingsSummary(2L);
+        bookingService.getOwnerBookingsSummary(1L);
+        Mockito.verify(bookingRepository, Mockito.times(2)).countBookerBookingsByState(eq(2L), any(LocalDateTime.class));
+        Mockito.verify(bookingRepository, Mockito.times(2)).countOwnerBookingsByState(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void userLookupIsCachedUntilUserChangesTest() throws NotFoundException {
+        Mockito
+                .when(userRepository.findById(1L))
+                .thenReturn(Optional.of(new User(1L, "booker", "booker@mail.ru")));
+
+        bookingService.getCurrentUserBookingsSummary(1L);
+        bookingService.getOwnerBookingsSummary(1L);
+        Mockito.verify(userRepository, Mockito.times(1)).findById(1L);
+
+        userLookup.onUserChanged(new UserChangedEvent(1L, false));
+        bookingService.getCurrentUserBookingsSummary(1L);
+        Mockito.verify(userRepository, Mockito.times(2)).findById(1L);
+
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.getCurrentUserBookingsSummary(2L));
+        Assertions.assertThrows(NotFoundException.class, () -> bookingService.getCurrentUserBookingsSummary(2L));
+        Mockito.verify(userRepository, Mockito.times(2)).findById(2L);
+    }
+
+    @Test
+    public void patchBookingsTest() throws ValidationException {
+        User owner = new User(1L, "Owner", "owner@mail.ru");
+        User booker = new User(2L, "booker", "booker@mail.ru");
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwner(owner);
+        Item otherItem = new Item();
+        otherItem.setId(2L);
+        otherItem.setOwner(booker);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Booking first = new Booking(1L, start, start.plusDays(2));
+        Booking overlapping = new Booking(2L, start.plusDays(1), start.plusDays(3));
+        Booking rejected = new Booking(3L, start, start.plusDays(1));
+        Booking foreign = new Booking(4L, start, start.plusDays(1));
+        Booking decided = new Booking(5L, start.plusDays(10), start.plusDays(11));
+        decided.setStatus(BookingStatus.APPROVED);
+        for (Booking booking : List.of(first, overlapping, rejected, decided)) {
+            booking.setItem(item);
+            booking.setBooker(booker);
+        }
+        foreign.setItem(otherItem);
+        foreign.setBooker(owner);
+
+        Mockito
+                .when(bookingRepository.findItemIdsByIds(anyCollection()))
+                .thenReturn(List.of(1L, 2L));
+        Mockito
+                .when(bookingRepository.findAllWithItemByIds(anyCollection()))
+                .thenReturn(List.of(first, overlapping, rejected, foreign, decided));
+        Mockito
+                .when(bookingRepository.findPeriodsOverlapping(anyCollection(), eq(BookingStatus.APPROVED),
+                        any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        Mockito
+                .when(bookingRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BookingBatchResultDto> results = bookingService.patchBookings(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, true),
+                new BookingDecisionDto(3L, false),
+                new BookingDecisionDto(4L, true),
+                new BookingDecisionDto(5L, false),
+                new BookingDecisionDto(6L, true),
+                new BookingDecisionDto(1L, false),
+                new BookingDecisionDto(7L, null)), 1L);
+
+        Assertions.assertEquals(8, results.size());
+        Assertions.assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        Assertions.assertEquals("Вещь уже забронирована на это время", results.get(1).getError());
+        Assertions.assertEquals(BookingStatus.REJECTED, results.get(2).getBooking().getStatus());
+        Assertions.assertEquals("Пользователь не владелец вещи", results.get(3).getError());
+        Assertions.assertEquals("Попытка изменения изменненного статуса вещи", results.get(4).getError());
+        Assertions.assertEquals("Букинга с таким номером не существует", results.get(5).getError());
+        Assertions.assertEquals("Решение по букингу уже есть в пакете", results.get(6).getError());
+        Assertions.assertEquals("Некорректное решение по букингу", results.get(7).getError());
+        Assertions.assertEquals(BookingStatus.WAITING, overlapping.getStatus());
+        Mockito.verify(bookingRepository).saveAll(List.of(first, rejected));
+        Mockito.verify(outbox).add(OutboxEventType.BOOKING_APPROVED, 1L, results.get(0).getBooking());
+        Mockito.verify(outbox).add(OutboxEventType.BOOKING_REJECTED, 3L, results.get(2).getBooking());
+        Mockito.verify(eventPublisher, Mockito.times(1)).publishEvent(new ItemChangedEvent(1L));
+        Mockito.verify(eventPublisher).publishEvent(new BookingStatusChangedEvent(results.get(0).getBooking()));
+        Mockito.verify(eventPublisher).publishEvent(new BookingStatusChangedEvent(results.get(2).getBooking()));
+
+        Assertions.assertThrows(ValidationException.class, () -> bookingService.patchBookings(List.of(), 1L));
     }
 }
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+public class ItemLocksTest {
+    @Test
+    public void sameItemSameLockTest() {
+        ItemLocks itemLocks = new ItemLocks(16);
+
+        Assertions.assertSame(itemLocks.get(1L), itemLocks.get(1L));
+        Assertions.assertSame(itemLocks.get(1L), itemLocks.get(17L));
+        Assertions.assertNotSame(itemLocks.get(1L), itemLocks.get(2L));
+    }
+
+    @Test
+    public void stripeCountRoundedToPowerOfTwoTest() {
+        ItemLocks itemLocks = new ItemLocks(10);
+
+        Assertions.assertSame(itemLocks.get(0L), itemLocks.get(16L));
+        Assertions.assertNotSame(itemLocks.get(0L), itemLocks.get(10L));
+    }
+
+    @Test
+    public void getAllOrdersDistinctStripesTest() {
+        ItemLocks itemLocks = new ItemLocks(16);
+
+        Assertions.assertEquals(List.of(itemLocks.get(1L), itemLocks.get(3L), itemLocks.get(5L)),
+                itemLocks.getAll(List.of(5L, 17L, 3L, 1L, 21L)));
+    }
+
+    @Test
+    public void unrelatedItemsLockInParallelTest() throws InterruptedException {
+        ItemLocks itemLocks = new ItemLocks(16);
+        Lock lock = itemLocks.get(1L);
+        CountDownLatch otherItemLocked = new CountDownLatch(1);
+
+        lock.lock();
+        try {
+            Thread thread = new Thread(() -> {
+                Lock otherLock = itemLocks.get(2L);
+                otherLock.lock();
+                try {
+                    otherItemLocked.countDown();
+                } finally {
+                    otherLock.unlock();
+                }
+            });
+            thread.start();
+
+            Assertions.assertTrue(otherItemLocked.await(5, TimeUnit.SECONDS));
+            thread.join();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
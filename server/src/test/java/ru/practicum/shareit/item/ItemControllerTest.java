@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -20,6 +21,7 @@ import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
 
 import java.nio.charset.StandardCharsets;
@@ -122,6 +124,24 @@ public class ItemControllerTest {
 
     }
 
+    @Test
+    public void patchItemConflictTest() throws Exception {
+        ItemDto itemDto = ItemMapper.toItemDto(new Item(1L, "test", "test", true,
+                new User(1L, "user", "test@mail.ru"), null));
+
+        Mockito
+                .when(itemService.patchItem(1L, itemDto, 1L))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/items/1")
+                        .header("X-Sharer-User-Id", 1L)
+                        .content(mapper.writeValueAsString(itemDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
     @Test
     public void findAllTest() throws Exception {
         User user = new User(1L, "user", "test@mail.ru");
@@ -190,6 +210,36 @@ public class ItemControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
+    @Test
+    public void getAvailableItemsTest() throws Exception {
+        User user = new User(1L, "user", "test@mail.ru");
+        Item item = new Item(1L, "test", "test", true,
+                user, null);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime end = start.plusDays(2);
+
+        Mockito
+                .when(itemService.getAvailableItems(start, end, null, 1))
+                .thenReturn(new CursorPage<>(ItemMapper.toItemDtos(List.of(item)), "next"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/items/available")
+                        .param("start", "2030-01-01T10:00:00")
+                        .param("end", "2030-01-03T10:00:00")
+                        .param("size", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(item.getId()), Long.class));
+
+        Mockito
+                .when(itemService.getAvailableItems(end, start, null, 20))
+                .thenThrow(ValidationException.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/items/available")
+                        .param("start", "2030-01-03T10:00:00")
+                        .param("end", "2030-01-01T10:00:00"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     public void createComment() throws Exception {
         User user = new User(1L, "user", "test@mail.ru");
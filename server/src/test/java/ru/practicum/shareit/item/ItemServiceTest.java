@@ -1,11 +1,16 @@
 package ru.practicum.shareit.item;
 
-
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.dto.BookingStatus;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentRepository;
@@ -13,22 +18,45 @@ import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.mapper.CommentMapper;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.outbox.Outbox;
+import ru.practicum.shareit.outbox.OutboxEventType;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.request.RequestAnsweredEvent;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.stream.NdjsonStreamer;
+import ru.practicum.shareit.user.UserChangedEvent;
+import ru.practicum.shareit.user.UserLookup;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 
 public class ItemServiceTest {
     private ItemRepository itemRepository;
     private UserRepository userRepository;
     private CommentRepository commentRepository;
+    private ItemViewCache itemViewCache;
+    private ApplicationEventPublisher eventPublisher;
+    private Outbox outbox;
     private ItemService itemService;
 
     @BeforeEach
@@ -36,7 +64,15 @@ public class ItemServiceTest {
         itemRepository = Mockito.mock(ItemRepository.class);
         userRepository = Mockito.mock(UserRepository.class);
         commentRepository = Mockito.mock(CommentRepository.class);
-        itemService = new ItemService(itemRepository, userRepository, commentRepository);
+        itemViewCache = new ItemViewCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        outbox = Mockito.mock(Outbox.class);
+        itemService = new ItemService(itemRepository,
+                new UserLookup(userRepository, 100, Duration.ofMinutes(1), new SimpleMeterRegistry()), commentRepository,
+                itemViewCache, eventPublisher, new NdjsonStreamer(
+                Mockito.mock(PlatformTransactionManager.class), Mockito.mock(EntityManager.class)),
+                Validation.buildDefaultValidatorFactory().getValidator(), outbox,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
     }
 
     @Test
@@ -52,11 +88,82 @@ public class ItemServiceTest {
                 .when(commentRepository.findAllCommentsByItemId(1L))
                 .thenReturn(Optional.of(new ArrayList<>()));
 
+        Assertions.assertEquals(ItemMapper.toItemDto(item), itemService.getItem(1L, 1L));
+    }
+
+    @Test
+    public void getItemFromCacheTest() throws NotFoundException {
+        User owner = new User(1L, "user", "test@mail.ru");
+        Item item = new Item(1L, "test", "test", true, owner, null);
+        Booking booking = new Booking(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(new User(2L, "booker", "booker@mail.ru"));
+        booking.setStatus(BookingStatus.APPROVED);
+
+        Mockito
+                .when(itemRepository.findById(1L))
+                .thenReturn(Optional.of(item));
         Mockito
-                .when(itemRepository.findNextBookingByItemId(1L, LocalDateTime.now()))
+                .when(commentRepository.findAllCommentsByItemId(1L))
                 .thenReturn(Optional.of(new ArrayList<>()));
+        Mockito
+                .when(itemRepository.findLastAndNextBookingsByItemIds(anyCollection(),
+                        eq(BookingStatus.APPROVED), any(LocalDateTime.class)))
+                .thenReturn(List.of(booking));
 
-        Assertions.assertEquals(ItemMapper.toItemDto(item), itemService.getItem(1L, 1L));
+        Assertions.assertEquals(BookingMapper.toBookingDto(booking), itemService.getItem(1L, 1L).getNextBooking());
+        Assertions.assertNull(itemService.getItem(1L, 2L).getNextBooking());
+        Assertions.assertEquals(BookingMapper.toBookingDto(booking), itemService.getItem(1L, 1L).getNextBooking());
+        Mockito.verify(itemRepository, Mockito.times(1)).findById(1L);
+
+        itemViewCache.onItemChanged(new ItemChangedEvent(1L));
+        itemService.getItem(1L, 2L);
+        Mockito.verify(itemRepository, Mockito.times(2)).findById(1L);
+
+        Mockito
+                .when(itemRepository.findById(2L))
+                .thenReturn(Optional.empty());
+        Assertions.assertThrows(NotFoundException.class, () -> itemService.getItem(2L, 1L));
+    }
+
+    @Test
+    public void userChangesEvictItemViewsTest() throws NotFoundException {
+        User owner = new User(1L, "user", "test@mail.ru");
+        Item item = new Item(1L, "test", "test", true, owner, null);
+        Booking booking = new Booking(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(new User(2L, "booker", "booker@mail.ru"));
+        booking.setStatus(BookingStatus.APPROVED);
+
+        Mockito
+                .when(itemRepository.findById(1L))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(commentRepository.findAllCommentsByItemId(1L))
+                .thenReturn(Optional.of(new ArrayList<>()));
+        Mockito
+                .when(itemRepository.findLastAndNextBookingsByItemIds(anyCollection(),
+                        eq(BookingStatus.APPROVED), any(LocalDateTime.class)))
+                .thenReturn(List.of(booking));
+
+        itemService.getItem(1L, 1L);
+        itemViewCache.onUserChanged(new UserChangedEvent(3L, false));
+        itemService.getItem(1L, 1L);
+        Mockito.verify(itemRepository, Mockito.times(1)).findById(1L);
+
+        itemViewCache.onUserChanged(new UserChangedEvent(2L, false));
+        itemService.getItem(1L, 1L);
+        Mockito.verify(itemRepository, Mockito.times(2)).findById(1L);
+
+        itemViewCache.onUserChanged(new UserChangedEvent(1L, false));
+        itemService.getItem(1L, 1L);
+        Mockito.verify(itemRepository, Mockito.times(3)).findById(1L);
+
+        Mockito
+                .when(itemRepository.findById(1L))
+                .thenReturn(Optional.empty());
+        itemViewCache.onUserChanged(new UserChangedEvent(3L, true));
+        Assertions.assertThrows(NotFoundException.class, () -> itemService.getItem(1L, 1L));
     }
 
     @Test
@@ -75,6 +182,7 @@ public class ItemServiceTest {
 
         ItemDto itemDto = ItemMapper.toItemDto(item);
         Assertions.assertEquals(itemDto, itemService.addItem(itemDto, 1L));
+        Mockito.verify(outbox).add(OutboxEventType.ITEM_CREATED, itemDto.getId(), itemDto);
     }
 
     @Test
@@ -87,8 +195,8 @@ public class ItemServiceTest {
                 .when(itemRepository.findById(1L))
                 .thenReturn(Optional.of(item));
         Mockito
-                .when(userRepository.existsById(1L))
-                .thenReturn(true);
+                .when(userRepository.findById(1L))
+                .thenReturn(Optional.of(user));
 
         Mockito
                 .when(itemRepository.save(item))
@@ -96,6 +204,8 @@ public class ItemServiceTest {
 
         ItemDto itemDto = ItemMapper.toItemDto(item);
         Assertions.assertEquals(itemDto, itemService.patchItem(1L, itemDto, 1L));
+        Mockito.verify(eventPublisher).publishEvent(new ItemChangedEvent(1L));
+        Mockito.verify(outbox).add(OutboxEventType.ITEM_UPDATED, 1L, itemDto);
     }
 
     @Test
@@ -103,6 +213,7 @@ public class ItemServiceTest {
         Assertions.assertAll(() -> itemService.deleteItem(1L));
 
         Mockito.verify(itemRepository, Mockito.times(1)).deleteById(1L);
+        Mockito.verify(eventPublisher).publishEvent(new ItemChangedEvent(1L));
     }
 
     @Test
@@ -116,26 +227,36 @@ public class ItemServiceTest {
                 item, new User(2L, "com", "com@mail.ru"));
 
         Mockito
-                .when(commentRepository.findAll())
+                .when(commentRepository.findAllCommentsByItemIds(List.of(1L, 2L)))
                 .thenReturn(List.of(comment));
 
         Mockito
                 .when(itemRepository.findAllByOwnerId(1L))
                 .thenReturn(Arrays.asList(item, item1));
 
-        Mockito
-                .when(commentRepository.findAllCommentsByItemId(1L))
-                .thenReturn(Optional.of(new ArrayList<>()));
+        User booker = new User(3L, "booker", "booker@mail.ru");
+        Booking lastBooking = new Booking(1L, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1));
+        lastBooking.setItem(item);
+        lastBooking.setBooker(booker);
+        lastBooking.setStatus(BookingStatus.APPROVED);
+        Booking nextBooking = new Booking(2L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        nextBooking.setItem(item1);
+        nextBooking.setBooker(booker);
+        nextBooking.setStatus(BookingStatus.APPROVED);
 
         Mockito
-                .when(itemRepository.findNextBookingByItemId(1L, LocalDateTime.now()))
-                .thenReturn(Optional.of(new ArrayList<>()));
+                .when(itemRepository.findLastAndNextBookingsByItemIds(anyCollection(),
+                        eq(BookingStatus.APPROVED), any(LocalDateTime.class)))
+                .thenReturn(List.of(lastBooking, nextBooking));
 
         List<ItemDto> itemDtos = ItemMapper.toItemDtos(Arrays.asList(item, item1));
 
         itemDtos.get(0).getComments().add(CommentMapper.toCommentDto(comment));
+        itemDtos.get(0).setLastBooking(BookingMapper.toBookingDto(lastBooking));
+        itemDtos.get(1).setNextBooking(BookingMapper.toBookingDto(nextBooking));
 
         Assertions.assertEquals(itemDtos, itemService.findAll(1L, null, null));
+        Mockito.verify(commentRepository, Mockito.never()).findAll();
         Assertions.assertThrows(ValidationException.class, () -> itemService.findAll(1L, 0, 0));
     }
 
@@ -147,12 +268,160 @@ public class ItemServiceTest {
                 new User(1L, "user", "test@mail.ru"), null);
 
         Mockito
-                .when(itemRepository.findAll())
+                .when(itemRepository.searchAvailableByText("test"))
                 .thenReturn(Arrays.asList(item, item1));
 
         List<ItemDto> itemDtos = ItemMapper.toItemDtos(Arrays.asList(item, item1));
 
         Assertions.assertEquals(itemDtos, itemService.getItemByText("test", null, null));
+
+        Mockito
+                .when(itemRepository.searchAvailableByText("50\\%\\_off"))
+                .thenReturn(List.of(item));
+
+        Assertions.assertEquals(ItemMapper.toItemDtos(List.of(item)), itemService.getItemByText("50%_off", null, null));
+    }
+
+    @Test
+    public void findAllAfterTest() throws ValidationException {
+        User user = new User(1L, "user", "test@mail.ru");
+        Item item = new Item(1L, "test", "test", true,
+                user, null);
+        Item item1 = new Item(2L, "test1", "test1", true,
+                user, null);
+
+        Mockito
+                .when(itemRepository.findAllByOwnerIdAfter(1L, 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(item, item1));
+        Mockito
+                .when(itemRepository.findAllByOwnerIdAfter(1L, 1L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(item1));
+
+        CursorPage<ItemDto> page = itemService.findAllAfter(1L, "", 1);
+        Assertions.assertEquals(ItemMapper.toItemDtos(List.of(item)), page.getContent());
+
+        CursorPage<ItemDto> lastPage = itemService.findAllAfter(1L, page.getNextCursor(), 1);
+        Assertions.assertEquals(ItemMapper.toItemDtos(List.of(item1)), lastPage.getContent());
+        Assertions.assertNull(lastPage.getNextCursor());
+        Assertions.assertThrows(ValidationException.class, () -> itemService.findAllAfter(1L, "", 0));
+    }
+
+    @Test
+    public void getItemByTextAfterTest() throws ValidationException {
+        Item item = new Item(3L, "test", "test", true,
+                new User(1L, "user", "test@mail.ru"), null);
+
+        Mockito
+                .when(itemRepository.searchAvailableByTextAfter("test", 2L, PageRequest.of(0, 11)))
+                .thenReturn(List.of(item));
+
+        CursorPage<ItemDto> page = itemService.getItemByTextAfter("test", Cursor.encode(2L), 10);
+        Assertions.assertEquals(ItemMapper.toItemDtos(List.of(item)), page.getContent());
+        Assertions.assertNull(page.getNextCursor());
+        Assertions.assertTrue(itemService.getItemByTextAfter("", "", 10).getContent().isEmpty());
+        Assertions.assertThrows(ValidationException.class, () -> itemService.getItemByTextAfter("test", "%%%", 10));
+    }
+
+    @Test
+    public void getAvailableItemsTest() throws ValidationException {
+        User user = new User(1L, "user", "test@mail.ru");
+        Item item = new Item(1L, "test", "test", true, user, null);
+        Item item2 = new Item(3L, "test2", "test2", true, user, null);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = start.plusDays(2);
+
+        Mockito
+                .when(itemRepository.findFreeAfter(0L, BookingStatus.APPROVED, start, end, PageRequest.of(0, 2)))
+                .thenReturn(List.of(item, item2));
+        Mockito
+                .when(itemRepository.findFreeAfter(1L, BookingStatus.APPROVED, start, end, PageRequest.of(0, 2)))
+                .thenReturn(List.of(item2));
+
+        CursorPage<ItemDto> page = itemService.getAvailableItems(start, end, null, 1);
+        Assertions.assertEquals(ItemMapper.toItemDtos(List.of(item)), page.getContent());
+
+        CursorPage<ItemDto> lastPage = itemService.getAvailableItems(start, end, page.getNextCursor(), 1);
+        Assertions.assertEquals(ItemMapper.toItemDtos(List.of(item2)), lastPage.getContent());
+        Assertions.assertNull(lastPage.getNextCursor());
+        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableItems(end, start, null, 1));
+        Assertions.assertThrows(ValidationException.class, () -> itemService.getAvailableItems(start, end, null, 0));
+    }
+
+    @Test
+    public void streamItemsByTextTest() throws IOException {
+        Item item = new Item(1L, "test", "test", true,
+                new User(1L, "user", "test@mail.ru"), null);
+        Item item1 = new Item(2L, "test1", "test1", true,
+                new User(1L, "user", "test@mail.ru"), null);
+
+        Mockito
+                .when(itemRepository.streamAvailableByText("test"))
+                .thenReturn(Stream.of(item, item1));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        itemService.streamItemsByText("test").writeTo(outputStream);
+
+        String[] lines = outputStream.toString().split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(lines[0].startsWith("{\"id\":1,"));
+        Assertions.assertTrue(lines[1].startsWith("{\"id\":2,"));
+
+        outputStream.reset();
+        itemService.streamItemsByText("").writeTo(outputStream);
+        Assertions.assertEquals(0, outputStream.size());
+    }
+
+    @Test
+    public void addItemsTest() throws NotFoundException, ValidationException {
+        User owner = new User(1L, "user", "test@mail.ru");
+        ItemRequest itemRequest = new ItemRequest(1L, "request", LocalDateTime.now(), new User(3L, "requester", "requester@mail.ru"));
+        ItemRequest unansweredRequest = new ItemRequest(4L, "request", LocalDateTime.now(), new User(3L, "requester", "requester@mail.ru"));
+
+        ItemDto itemDto = new ItemDto(0, "test", "test", true, null, 0,
+                null, null, null);
+        ItemDto invalidItemDto = new ItemDto(0, "", "test", null, null, 4L,
+                null, null, null);
+        ItemDto requestedItemDto = new ItemDto(0, "test1", "test1", true, null, 1L,
+                null, null, null);
+        ItemDto unknownRequestItemDto = new ItemDto(0, "test2", "test2", true, null, 2L,
+                null, null, null);
+
+        Mockito
+                .when(userRepository.findById(1L))
+                .thenReturn(Optional.of(owner));
+        Mockito
+                .when(itemRepository.findRequestsByIds(anyCollection()))
+                .thenReturn(List.of(itemRequest, unansweredRequest));
+        Mockito
+                .when(itemRepository.saveAll(Mockito.<List<Item>>any()))
+                .thenAnswer(invocationOnMock -> {
+                    List<Item> items = invocationOnMock.getArgument(0);
+                    for (int i = 0; i < items.size(); i++)
+                        items.get(i).setId(i + 1);
+                    return items;
+                });
+
+        List<ItemBatchResultDto> results = itemService.addItems(List.of(itemDto, invalidItemDto,
+                requestedItemDto, unknownRequestItemDto), 1L);
+
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertEquals(1L, results.get(0).getItem().getId());
+        Assertions.assertNull(results.get(0).getError());
+        Assertions.assertNull(results.get(1).getItem());
+        Assertions.assertTrue(results.get(1).getError().startsWith("Некорректные данные вещи"));
+        Assertions.assertEquals(2L, results.get(2).getItem().getId());
+        Assertions.assertEquals(1L, results.get(2).getItem().getRequestId());
+        Assertions.assertEquals("Запрос не найден", results.get(3).getError());
+        Mockito.verify(itemRepository, Mockito.times(1)).findRequestsByIds(anyCollection());
+        Mockito.verify(outbox, Mockito.times(2)).add(eq(OutboxEventType.ITEM_CREATED), any(Long.class), any());
+        Mockito.verify(eventPublisher).publishEvent(new RequestAnsweredEvent(1L));
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(new RequestAnsweredEvent(4L));
+        Mockito.verify(eventPublisher).publishEvent(new ItemCreatedEvent(results.get(0).getItem(), 0));
+        Mockito.verify(eventPublisher).publishEvent(new ItemCreatedEvent(results.get(2).getItem(), itemRequest.getRequester().getId()));
+        Mockito.verify(userRepository, Mockito.times(1)).findById(1L);
+
+        Assertions.assertThrows(ValidationException.class, () -> itemService.addItems(List.of(), 1L));
+        Assertions.assertThrows(NotFoundException.class, () -> itemService.addItems(List.of(itemDto), 2L));
     }
 
     @Test
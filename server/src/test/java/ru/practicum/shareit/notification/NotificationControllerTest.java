@@ -0,0 +1,164 @@
+package ru.practicum.shareit.notification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.BookingStatusChangedEvent;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatus;
+import ru.practicum.shareit.exception.ControllerExceptionHandler;
+import ru.practicum.shareit.item.ItemCreatedEvent;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserLookup;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NotificationControllerTest {
+    private NotificationRegistry notificationRegistry;
+    private NotificationService notificationService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void initialize() {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito
+                .when(userRepository.findById(1L))
+                .thenReturn(Optional.of(new User(1L, "user", "user@mail.ru")));
+
+        notificationRegistry = new NotificationRegistry(new SimpleMeterRegistry(), Duration.ofMinutes(1), 2, 1, 10);
+        notificationService = new NotificationService(notificationRegistry,
+                new UserLookup(userRepository, 100, Duration.ofMinutes(1), new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(new NotificationController(notificationService))
+                .setControllerAdvice(new ControllerExceptionHandler())
+                .build();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        notificationRegistry.shutdown();
+    }
+
+    @Test
+    public void subscriberReceivesOwnEventsTest() throws Exception {
+        MvcResult result = subscribe();
+
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(5L);
+        bookingDto.setBookerId(1L);
+        bookingDto.setStatus(BookingStatus.APPROVED);
+        notificationService.onBookingStatusChanged(new BookingStatusChangedEvent(bookingDto));
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(7L);
+        itemDto.setRequestId(3L);
+        notificationService.onItemCreated(new ItemCreatedEvent(itemDto, 1L));
+        notificationService.onItemCreated(new ItemCreatedEvent(itemDto, 2L));
+        notificationService.onItemCreated(new ItemCreatedEvent(itemDto, 0));
+
+        String content = awaitContent(result, "event:request-item\ndata:{\"id\":7,");
+        Assertions.assertTrue(content.contains("event:booking\ndata:{\"id\":5,"), content);
+        Assertions.assertTrue(content.contains("\"status\":\"APPROVED\""), content);
+        Assertions.assertTrue(content.contains("event:request-item\ndata:{\"id\":7,"), content);
+        Assertions.assertEquals(1, content.split("event:request-item").length - 1, content);
+    }
+
+    @Test
+    public void unknownUserIsRejectedTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/notifications")
+                        .header("X-Sharer-User-Id", 2L)
+                        .accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void oldestSubscriptionIsClosedOverLimitTest() throws Exception {
+        subscribe();
+        subscribe();
+        subscribe();
+
+        Assertions.assertEquals(2, notificationRegistry.getSubscriberCount());
+    }
+
+    @Test
+    public void stuckSubscriberIsEvictedByHeartbeatTest() throws Exception {
+        NotificationRegistry registry = new NotificationRegistry(new SimpleMeterRegistry(), Duration.ofMinutes(1), 2, 2, 10);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger heartbeats = new AtomicInteger();
+        registry.register(1L, new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        });
+        registry.register(2L, new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                heartbeats.incrementAndGet();
+            }
+        });
+
+        try {
+            registry.heartbeat();
+            Assertions.assertTrue(writing.await(1, TimeUnit.SECONDS));
+            Assertions.assertTrue(await(heartbeats, 1));
+
+            registry.heartbeat();
+            Assertions.assertTrue(await(heartbeats, 2));
+            Assertions.assertEquals(2, registry.getSubscriberCount());
+
+            registry.heartbeat();
+            Assertions.assertTrue(await(heartbeats, 3));
+            Assertions.assertEquals(1, registry.getSubscriberCount());
+        } finally {
+            release.countDown();
+            registry.shutdown();
+        }
+    }
+
+    private MvcResult subscribe() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/notifications")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+    }
+
+    private String awaitContent(MvcResult result, String expected) throws Exception {
+        String content = "";
+        for (int i = 0; i < 100 && !content.contains(expected); i++) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        return content;
+    }
+
+    private boolean await(AtomicInteger counter, int expected) throws InterruptedException {
+        for (int i = 0; i < 100 && counter.get() < expected; i++)
+            Thread.sleep(10);
+        return counter.get() == expected;
+    }
+}
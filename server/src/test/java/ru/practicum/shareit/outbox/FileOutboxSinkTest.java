@@ -0,0 +1,33 @@
+package ru.practicum.shareit.outbox;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class FileOutboxSinkTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void sendTest() throws IOException {
+        Path file = directory.resolve("outbox.ndjson");
+        FileOutboxSink sink = new FileOutboxSink(file);
+
+        sink.send(List.of(new OutboxEvent(1L, OutboxEventType.BOOKING_CREATED, 5L, "{\"id\":5}",
+                LocalDateTime.of(2022, 1, 1, 12, 0))));
+        sink.send(List.of(new OutboxEvent(2L, OutboxEventType.BOOKING_APPROVED, 5L, "{\"id\":5}",
+                LocalDateTime.of(2022, 1, 1, 12, 5))));
+
+        List<String> lines = Files.readAllLines(file);
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertTrue(lines.get(0).startsWith("{\"id\":1,\"type\":\"BOOKING_CREATED\",\"aggregateId\":5,"
+                + "\"payload\":{\"id\":5},"));
+        Assertions.assertTrue(lines.get(1).contains("\"type\":\"BOOKING_APPROVED\""));
+    }
+}
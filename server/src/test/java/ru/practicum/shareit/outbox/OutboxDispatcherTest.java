@@ -0,0 +1,97 @@
+package ru.practicum.shareit.outbox;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class OutboxDispatcherTest {
+    private OutboxRepository outboxRepository;
+    private OutboxSink outboxSink;
+    private OutboxDispatcher outboxDispatcher;
+
+    @BeforeEach
+    public void initialize() {
+        outboxRepository = Mockito.mock(OutboxRepository.class);
+        outboxSink = Mockito.mock(OutboxSink.class);
+        outboxDispatcher = new OutboxDispatcher(outboxRepository, outboxSink,
+                Mockito.mock(PlatformTransactionManager.class), 2);
+    }
+
+    @Test
+    public void dispatchTest() throws IOException {
+        List<OutboxEvent> firstBatch = List.of(event(1L), event(2L));
+        List<OutboxEvent> secondBatch = List.of(event(3L));
+
+        Mockito
+                .when(outboxRepository.findBatchForDispatch(PageRequest.of(0, 2)))
+                .thenReturn(firstBatch, secondBatch);
+
+        outboxDispatcher.dispatch();
+
+        Mockito.verify(outboxSink).send(firstBatch);
+        Mockito.verify(outboxSink).send(secondBatch);
+        Mockito.verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        Mockito.verify(outboxRepository).deleteAllByIdInBatch(List.of(3L));
+    }
+
+    @Test
+    public void dispatchEmptyTest() throws IOException {
+        Mockito
+                .when(outboxRepository.findBatchForDispatch(any()))
+                .thenReturn(List.of());
+
+        outboxDispatcher.dispatch();
+
+        Mockito.verify(outboxSink, Mockito.never()).send(anyList());
+        Mockito.verify(outboxRepository, Mockito.never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    public void failedSendKeepsEventsTest() throws IOException {
+        Mockito
+                .when(outboxRepository.findBatchForDispatch(any()))
+                .thenReturn(List.of(event(1L)));
+        Mockito
+                .doThrow(new IOException("disk full"))
+                .when(outboxSink).send(anyList());
+
+        Assertions.assertThrows(UncheckedIOException.class, () -> outboxDispatcher.dispatch());
+        Mockito.verify(outboxRepository, Mockito.never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    public void sinkRequiredOutsideDevAndTestProfilesTest() {
+        ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+                .withUserConfiguration(FileOutboxSink.class, InMemoryOutboxSink.class, OutboxDispatcher.class)
+                .withBean(OutboxRepository.class, () -> outboxRepository)
+                .withBean(PlatformTransactionManager.class, () -> Mockito.mock(PlatformTransactionManager.class))
+                .withPropertyValues("shareit.outbox.batch-size=2", "shareit.outbox.file=outbox.ndjson");
+
+        contextRunner.run(context -> Assertions.assertNotNull(context.getStartupFailure()));
+        contextRunner
+                .withPropertyValues("shareit.outbox.sink=file")
+                .run(context -> Assertions.assertNotNull(context.getStartupFailure()));
+        contextRunner
+                .withPropertyValues("shareit.outbox.sink=file", "spring.profiles.active=dev")
+                .run(context -> Assertions.assertTrue(context.getBean(OutboxSink.class) instanceof FileOutboxSink));
+        contextRunner
+                .withPropertyValues("shareit.outbox.sink=memory", "spring.profiles.active=test")
+                .run(context -> Assertions.assertTrue(context.getBean(OutboxSink.class) instanceof InMemoryOutboxSink));
+    }
+
+    private OutboxEvent event(long id) {
+        return new OutboxEvent(id, OutboxEventType.BOOKING_CREATED, id, "{}", LocalDateTime.now());
+    }
+}
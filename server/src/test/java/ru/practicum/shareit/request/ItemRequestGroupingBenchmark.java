@@ -0,0 +1,83 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Not picked up by the regular test run: mvn -pl server test -Dtest=ItemRequestGroupingBenchmark
+@SpringBootTest
+public class ItemRequestGroupingBenchmark {
+    private static final int[] REQUEST_COUNTS = {1_000, 2_000, 4_000, 8_000};
+    private static final int ITEMS_PER_REQUEST = 2;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private ItemRequestService itemRequestService;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private static final AtomicInteger USER_COUNTER = new AtomicInteger();
+
+    @Test
+    public void ownerRequestsTest() throws Exception {
+        User itemOwner = createUser();
+
+        System.out.printf("Owner requests with %d items each, best of %d rounds:%n", ITEMS_PER_REQUEST, ROUNDS);
+        for (int requestCount : REQUEST_COUNTS) {
+            User requester = createUser();
+            createRequests(requester, itemOwner, requestCount);
+
+            itemRequestService.findAllOwnerRequests(requester.getId(), null, null);
+            long bestNanos = Long.MAX_VALUE;
+            for (int i = 0; i < ROUNDS; i++) {
+                long started = System.nanoTime();
+                List<ItemRequestDto> requests = itemRequestService.findAllOwnerRequests(requester.getId(), null, null);
+                bestNanos = Math.min(bestNanos, System.nanoTime() - started);
+
+                Assertions.assertEquals(requestCount, requests.size());
+                Assertions.assertTrue(requests.stream().allMatch(request -> request.getItems().size() == ITEMS_PER_REQUEST));
+            }
+
+            System.out.printf("  %5d requests: %8.1f ms, %6.1f us per request%n",
+                    requestCount, bestNanos / 1e6, bestNanos / 1e3 / requestCount);
+        }
+    }
+
+    private void createRequests(User requester, User itemOwner, int count) {
+        LocalDateTime created = LocalDateTime.now().minusDays(1);
+        List<ItemRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            requests.add(new ItemRequest(0, "request " + i, created.plusSeconds(i), requester));
+        requests = itemRequestRepository.saveAll(requests);
+
+        List<Item> items = new ArrayList<>();
+        for (ItemRequest request : requests)
+            for (int i = 0; i < ITEMS_PER_REQUEST; i++)
+                items.add(new Item(0, "item", "benchmark item", true, itemOwner, request));
+        itemRepository.saveAll(items);
+    }
+
+    private User createUser() {
+        int number = USER_COUNTER.incrementAndGet();
+        return userRepository.save(new User(0, "user" + number, "requests" + number + "@mail.ru"));
+    }
+}
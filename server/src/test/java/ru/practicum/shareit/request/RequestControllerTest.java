@@ -11,7 +11,9 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
@@ -70,7 +72,7 @@ public class RequestControllerTest {
         itemRequestDto1.setDescription("test");
 
         Mockito
-                .when(itemRequestService.findAllOwnerRequests(1L))
+                .when(itemRequestService.findAllOwnerRequests(1L, null, null))
                 .thenReturn(List.of(itemRequestDto, itemRequestDto1));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/requests")
@@ -108,6 +110,30 @@ public class RequestControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isOk());
     }
 
+    @Test
+    public void findMatchesTest() throws Exception {
+        User user = new User(1L, "user", "user@mail.ru");
+        ItemRequestDto itemRequestDto = new ItemRequestDto();
+        itemRequestDto.setId(1L);
+        itemRequestDto.setRequester(UserMapper.toUserDto(user));
+        itemRequestDto.setDescription("нужна дрель");
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(1L);
+        itemDto.setName("Дрель");
+
+        Mockito
+                .when(itemRequestService.findMatches(2L, 0, 20))
+                .thenReturn(List.of(new RequestMatchDto(itemRequestDto, itemDto, 0.5)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/requests/matches")
+                        .header("X-Sharer-User-Id", 2L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].request.id").value(1L))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].item.name").value("Дрель"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].score").value(0.5));
+    }
+
     @Test
     public void getRequestByIdTest() throws Exception {
         User user = new User(1L, "user", "user@mail.ru");
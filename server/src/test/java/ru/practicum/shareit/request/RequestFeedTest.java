@@ -0,0 +1,185 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.ItemChangedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserChangedEvent;
+import ru.practicum.shareit.user.UserLookup;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class RequestFeedTest {
+    private final User first = new User(1L, "first", "first@mail.ru");
+    private final User second = new User(2L, "second", "second@mail.ru");
+    private final LocalDateTime created = LocalDateTime.now().minusDays(1);
+
+    private ItemRequestRepository itemRequestRepository;
+    private UserLookup userLookup;
+    private RequestFeed requestFeed;
+    private List<ItemRequest> requests;
+
+    @BeforeEach
+    public void initialize() {
+        itemRequestRepository = Mockito.mock(ItemRequestRepository.class);
+        userLookup = Mockito.mock(UserLookup.class);
+        requestFeed = new RequestFeed(itemRequestRepository, userLookup, 10);
+
+        requests = new ArrayList<>();
+        for (int i = 1; i <= 6; i++)
+            requests.add(new ItemRequest(i, "request" + i, created.plusMinutes(i), i % 3 == 0 ? second : first));
+        Mockito
+                .when(itemRequestRepository.findFeed(PageRequest.of(0, 11)))
+                .thenReturn(requests);
+        Mockito
+                .when(itemRequestRepository.findItemsByRequests(anyList()))
+                .thenReturn(List.of());
+    }
+
+    @Test
+    public void pageSkipsOwnRequestsTest() {
+        requestFeed.rebuild();
+
+        Assertions.assertEquals(List.of(3L, 6L), ids(requestFeed.getPage(1L, 0, 10)));
+        Assertions.assertEquals(List.of(1L, 2L), ids(requestFeed.getPage(2L, 0, 2)));
+        Assertions.assertEquals(List.of(4L, 5L), ids(requestFeed.getPage(2L, 1, 2)));
+        Assertions.assertEquals(List.of(), ids(requestFeed.getPage(2L, 2, 2)));
+        Assertions.assertEquals(List.of(4L, 5L, 6L), ids(requestFeed.getPage(7L, 1, 3)));
+    }
+
+    @Test
+    public void addKeepsCreationOrderTest() {
+        requestFeed.rebuild();
+
+        requestFeed.add(new ItemRequest(7L, "request7", created.plusMinutes(10), second));
+        requestFeed.add(new ItemRequest(8L, "request8", created.plusSeconds(150), second));
+
+        Assertions.assertEquals(List.of(1L, 2L, 8L, 3L, 4L, 5L, 6L, 7L), ids(requestFeed.getPage(9L, 0, 10)));
+        Assertions.assertEquals(List.of(8L, 3L), ids(requestFeed.getPage(1L, 0, 2)));
+        Assertions.assertEquals(List.of(6L, 7L), ids(requestFeed.getPage(1L, 1, 2)));
+        Assertions.assertEquals(List.of(1L, 2L, 4L, 5L), ids(requestFeed.getPage(2L, 0, 10)));
+    }
+
+    @Test
+    public void responsesAreCachedUntilInvalidatedTest() {
+        requestFeed.rebuild();
+        ItemRequest request = new ItemRequest(3L, "request3", created.plusMinutes(3), second);
+        Item item = new Item(10L, "item", "item", true, second, request);
+        Mockito
+                .when(itemRequestRepository.findItemsByRequests(anyList()))
+                .thenReturn(List.of(item));
+
+        Assertions.assertEquals(1, requestFeed.getPage(1L, 0, 1).orElseThrow().get(0).getItems().size());
+        requestFeed.getPage(1L, 0, 1);
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).findItemsByRequests(anyList());
+
+        requestFeed.onItemChanged(new ItemChangedEvent(10L));
+        requestFeed.getPage(1L, 0, 1);
+        requestFeed.onRequestAnswered(new RequestAnsweredEvent(3L));
+        requestFeed.getPage(1L, 0, 1);
+        Mockito.verify(itemRequestRepository, Mockito.times(3)).findItemsByRequests(anyList());
+    }
+
+    @Test
+    public void answerDuringLoadIsNotCachedTest() {
+        requestFeed.rebuild();
+        ItemRequest request = new ItemRequest(3L, "request3", created.plusMinutes(3), second);
+        Item item = new Item(10L, "item", "item", true, second, request);
+        Mockito
+                .when(itemRequestRepository.findItemsByRequests(anyList()))
+                .thenAnswer(invocation -> {
+                    requestFeed.onRequestAnswered(new RequestAnsweredEvent(3L));
+                    return List.of();
+                })
+                .thenReturn(List.of(item));
+
+        Assertions.assertEquals(0, requestFeed.getPage(1L, 0, 1).orElseThrow().get(0).getItems().size());
+        Assertions.assertEquals(1, requestFeed.getPage(1L, 0, 1).orElseThrow().get(0).getItems().size());
+        requestFeed.getPage(1L, 0, 1);
+        Mockito.verify(itemRequestRepository, Mockito.times(2)).findItemsByRequests(anyList());
+    }
+
+    @Test
+    public void windowServesFirstPagesTest() {
+        requestFeed = new RequestFeed(itemRequestRepository, userLookup, 4);
+        Mockito
+                .when(itemRequestRepository.findFeed(PageRequest.of(0, 5)))
+                .thenReturn(requests.subList(0, 5));
+
+        requestFeed.rebuild();
+
+        Assertions.assertEquals(List.of(1L, 2L), ids(requestFeed.getPage(2L, 0, 2)));
+        Assertions.assertTrue(requestFeed.getPage(2L, 1, 2).isEmpty());
+        Assertions.assertEquals(List.of(3L), ids(requestFeed.getPage(1L, 0, 1)));
+        Assertions.assertTrue(requestFeed.getPage(1L, 0, 2).isEmpty());
+
+        requestFeed.add(new ItemRequest(7L, "request7", created.plusMinutes(10), first));
+        requestFeed.add(new ItemRequest(8L, "request8", created.plusSeconds(150), first));
+
+        Assertions.assertEquals(List.of(1L, 2L, 8L, 3L), ids(requestFeed.getPage(9L, 0, 4)));
+        Assertions.assertTrue(requestFeed.getPage(9L, 1, 3).isEmpty());
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).findFeed(PageRequest.of(0, 5));
+    }
+
+    @Test
+    public void deletedRequesterIsDroppedWithoutRebuildTest() {
+        requestFeed.rebuild();
+
+        requestFeed.onUserChanged(new UserChangedEvent(2L, true));
+
+        Assertions.assertEquals(List.of(1L, 2L, 4L, 5L), ids(requestFeed.getPage(9L, 0, 10)));
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).findFeed(PageRequest.of(0, 11));
+        Mockito.verify(userLookup, Mockito.never()).fetch(2L);
+    }
+
+    @Test
+    public void deletedRequesterKeepsIncompleteWindowTest() {
+        requestFeed = new RequestFeed(itemRequestRepository, userLookup, 4);
+        Mockito
+                .when(itemRequestRepository.findFeed(PageRequest.of(0, 5)))
+                .thenReturn(requests.subList(0, 5));
+        requestFeed.rebuild();
+
+        requestFeed.onUserChanged(new UserChangedEvent(2L, true));
+
+        Assertions.assertEquals(List.of(1L, 2L, 4L), ids(requestFeed.getPage(9L, 0, 3)));
+        Assertions.assertTrue(requestFeed.getPage(9L, 1, 2).isEmpty());
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).findFeed(PageRequest.of(0, 5));
+    }
+
+    @Test
+    public void patchedRequesterIsReplacedTest() {
+        requestFeed.rebuild();
+        User renamed = new User(2L, "renamed", "renamed@mail.ru");
+        Mockito
+                .when(userLookup.fetch(2L))
+                .thenReturn(Optional.of(renamed));
+
+        requestFeed.onUserChanged(new UserChangedEvent(2L, false));
+
+        List<ItemRequestDto> page = requestFeed.getPage(1L, 0, 10).orElseThrow();
+        Assertions.assertEquals(List.of("renamed", "renamed"), page.stream()
+                .map(itemRequestDto -> itemRequestDto.getRequester().getName())
+                .collect(Collectors.toList()));
+        Assertions.assertEquals("first", requestFeed.getPage(2L, 0, 1).orElseThrow().get(0).getRequester().getName());
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).findFeed(PageRequest.of(0, 11));
+    }
+
+    private List<Long> ids(Optional<List<ItemRequestDto>> page) {
+        return page.orElseThrow().stream()
+                .map(ItemRequestDto::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class RequestMatchIndexTest {
+
+    @Test
+    public void tokenizeTest() {
+        Assertions.assertEquals(Set.of("нужн", "дрел", "для", "ремо"),
+                RequestMatchIndex.tokenize("Нужна дрель, для ремонта!"));
+        Assertions.assertEquals(RequestMatchIndex.tokenize("дрели"), RequestMatchIndex.tokenize("ДРЕЛЬ"));
+        Assertions.assertEquals(Set.of("елка"), RequestMatchIndex.tokenize("ёлка в 2"));
+        Assertions.assertTrue(RequestMatchIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    public void matchRanksRequestsBySharedRareTokensTest() {
+        RequestMatchIndex index = new RequestMatchIndex();
+        index.add(1L, 1L, "Нужна ударная дрель");
+        index.add(2L, 1L, "Нужна дрель");
+        index.add(3L, 1L, "Нужна палатка");
+        index.add(4L, 2L, "Ударная дрель");
+
+        List<RequestMatchIndex.Candidate> candidates = index.match(2L, "Дрель ударная", 0.1, 10);
+        Assertions.assertEquals(List.of(1L, 2L), ids(candidates));
+        Assertions.assertTrue(candidates.get(0).getScore() > candidates.get(1).getScore());
+
+        Assertions.assertEquals(List.of(1L), ids(index.match(2L, "Дрель ударная", 0.1, 1)));
+        Assertions.assertEquals(List.of(1L), ids(index.match(2L, "Дрель ударная", 0.6, 10)));
+        Assertions.assertTrue(index.match(2L, "Велосипед", 0.1, 10).isEmpty());
+    }
+
+    @Test
+    public void removeDropsRequestFromMatchesTest() {
+        RequestMatchIndex index = new RequestMatchIndex();
+        index.add(1L, 1L, "Нужна дрель");
+        index.add(2L, 1L, "Дрель");
+
+        index.remove(1L);
+        index.remove(5L);
+
+        Assertions.assertFalse(index.contains(1L));
+        Assertions.assertEquals(List.of(2L), ids(index.match(2L, "Дрель", 0.1, 10)));
+        Assertions.assertEquals(List.of("нужн", "дрел"), index.rarestTokens(Set.of("нужн", "дрел"), 5));
+    }
+
+    @Test
+    public void removeByRequesterDropsOnlyTheirRequestsTest() {
+        RequestMatchIndex index = new RequestMatchIndex();
+        index.add(1L, 1L, "Нужна дрель");
+        index.add(2L, 1L, "Дрель");
+        index.add(3L, 3L, "Дрель ударная");
+
+        index.removeByRequester(1L);
+        index.removeByRequester(5L);
+
+        Assertions.assertFalse(index.contains(1L));
+        Assertions.assertFalse(index.contains(2L));
+        Assertions.assertEquals(List.of(3L), ids(index.match(2L, "Дрель", 0.1, 10)));
+    }
+
+    private List<Long> ids(List<RequestMatchIndex.Candidate> candidates) {
+        return candidates.stream()
+                .map(RequestMatchIndex.Candidate::getId)
+                .collect(Collectors.toList());
+    }
+}
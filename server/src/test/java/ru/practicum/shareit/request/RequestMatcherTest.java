@@ -0,0 +1,129 @@
+package ru.practicum.shareit.request;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.ItemCreatedEvent;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
+import ru.practicum.shareit.user.UserChangedEvent;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+public class RequestMatcherTest {
+    private final User requester = new User(1L, "requester", "requester@mail.ru");
+    private final User owner = new User(2L, "owner", "owner@mail.ru");
+    private final ItemRequest drillRequest = new ItemRequest(1L, "Нужна ударная дрель", LocalDateTime.now(), requester);
+    private final ItemRequest bikeRequest = new ItemRequest(2L, "Ищу велосипед", LocalDateTime.now(), requester);
+    private final ItemRequest ownRequest = new ItemRequest(3L, "Ударная дрель", LocalDateTime.now(), owner);
+    private final Item drill = new Item(10L, "Дрель", "Ударная дрель", true, owner, null);
+    private final Item tent = new Item(11L, "Палатка", "Туристическая палатка на четверых", true, owner, null);
+
+    private ItemRequestRepository itemRequestRepository;
+    private RequestMatchRepository requestMatchRepository;
+    private ItemRepository itemRepository;
+    private RequestMatcher requestMatcher;
+
+    @BeforeEach
+    public void initialize() {
+        itemRequestRepository = Mockito.mock(ItemRequestRepository.class);
+        requestMatchRepository = Mockito.mock(RequestMatchRepository.class);
+        itemRepository = Mockito.mock(ItemRepository.class);
+        requestMatcher = new RequestMatcher(itemRequestRepository, requestMatchRepository, itemRepository,
+                Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 1, 10, 0.25, 20);
+
+        Mockito
+                .when(itemRequestRepository.streamOpenRequests())
+                .thenAnswer(invocationOnMock -> Stream.of(drillRequest, bikeRequest, ownRequest));
+        Mockito
+                .when(itemRequestRepository.findAllById(any()))
+                .thenAnswer(invocationOnMock -> Stream.of(drillRequest, bikeRequest, ownRequest)
+                        .filter(request -> invocationOnMock.<List<Long>>getArgument(0).contains(request.getId()))
+                        .collect(Collectors.toList()));
+        Mockito
+                .when(itemRepository.findById(10L))
+                .thenReturn(Optional.of(drill));
+    }
+
+    @AfterEach
+    public void shutdown() {
+        requestMatcher.shutdown();
+    }
+
+    @Test
+    public void createdItemIsMatchedWithOpenRequestsTest() {
+        requestMatcher.rebuild();
+
+        requestMatcher.onItemCreated(new ItemCreatedEvent(ItemMapper.toItemDto(drill), 0));
+
+        List<RequestMatch> matches = capturedMatches();
+        Assertions.assertEquals(1, matches.size());
+        Assertions.assertEquals(drillRequest, matches.get(0).getRequest());
+        Assertions.assertEquals(drill, matches.get(0).getItem());
+    }
+
+    @Test
+    public void addedRequestIsMatchedWithCatalogTest() {
+        Mockito
+                .when(requestMatchRepository.findCandidateItems(anyString(), eq(1L), any()))
+                .thenReturn(List.of(drill, tent));
+        Mockito
+                .when(itemRequestRepository.existsById(4L))
+                .thenReturn(true);
+        ItemRequest request = new ItemRequest(4L, "Дрель ударная", LocalDateTime.now(), requester);
+
+        requestMatcher.add(request);
+
+        List<RequestMatch> matches = capturedMatches();
+        Assertions.assertEquals(1, matches.size());
+        Assertions.assertEquals(drill, matches.get(0).getItem());
+    }
+
+    @Test
+    public void answeredRequestIsNoLongerMatchedTest() {
+        requestMatcher.rebuild();
+
+        requestMatcher.onRequestAnswered(new RequestAnsweredEvent(1L));
+        requestMatcher.onItemCreated(new ItemCreatedEvent(ItemMapper.toItemDto(drill), 0));
+
+        Mockito.verify(requestMatchRepository, Mockito.timeout(1000)).deleteAllByRequestId(1L);
+        Mockito.verify(itemRepository, Mockito.after(200).never()).findById(anyLong());
+    }
+
+    @Test
+    public void deletedRequesterIsRemovedWithoutRebuildTest() {
+        requestMatcher.rebuild();
+
+        requestMatcher.onUserChanged(new UserChangedEvent(requester.getId(), false));
+        requestMatcher.onUserChanged(new UserChangedEvent(requester.getId(), true));
+        requestMatcher.onItemCreated(new ItemCreatedEvent(ItemMapper.toItemDto(drill), 0));
+
+        Mockito.verify(itemRepository, Mockito.after(200).never()).findById(anyLong());
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).streamOpenRequests();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RequestMatch> capturedMatches() {
+        ArgumentCaptor<List<RequestMatch>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(requestMatchRepository, Mockito.timeout(1000)).saveAll(captor.capture());
+        return captor.getValue();
+    }
+}
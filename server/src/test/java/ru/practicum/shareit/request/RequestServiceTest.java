@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,23 +13,38 @@ import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
+import ru.practicum.shareit.user.UserLookup;
+import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public class RequestServiceTest {
     private ItemRequestRepository itemRequestRepository;
+    private RequestMatchRepository requestMatchRepository;
+    private RequestMatcher requestMatcher;
+    private UserRepository userRepository;
     private ItemRequestService itemRequestService;
 
     @BeforeEach
     public void initialize() {
         itemRequestRepository = Mockito.mock(ItemRequestRepository.class);
-        itemRequestService = new ItemRequestService(itemRequestRepository);
+        requestMatchRepository = Mockito.mock(RequestMatchRepository.class);
+        requestMatcher = Mockito.mock(RequestMatcher.class);
+        userRepository = Mockito.mock(UserRepository.class);
+        UserLookup userLookup = new UserLookup(userRepository, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        itemRequestService = new ItemRequestService(itemRequestRepository,
+                new RequestFeed(itemRequestRepository, userLookup, 100), requestMatchRepository, requestMatcher,
+                userLookup);
     }
 
     @Test
@@ -40,7 +56,7 @@ public class RequestServiceTest {
         itemRequest.setDescription("test-request");
 
         Mockito
-                .when(itemRequestRepository.getUserIfExist(1L))
+                .when(userRepository.findById(1L))
                 .thenReturn(Optional.ofNullable(itemRequest.getRequester()));
 
         Mockito
@@ -49,10 +65,11 @@ public class RequestServiceTest {
 
         ItemRequestDto itemRequestDto = RequestMapper.toItemRequestDto(itemRequest);
         Assertions.assertEquals(itemRequestDto, itemRequestService.createRequest(1L, itemRequestDto));
+        Mockito.verify(requestMatcher, Mockito.times(1)).add(itemRequest);
     }
 
     @Test
-    public void findAllOwnerRequestsTest() throws NotFoundException {
+    public void findAllOwnerRequestsTest() throws NotFoundException, ValidationException {
         User owner = new User(1L, "requester", "requester@mail.ru");
         ItemRequest itemRequest = new ItemRequest();
         itemRequest.setId(1L);
@@ -67,15 +84,33 @@ public class RequestServiceTest {
         itemRequest1.setDescription("test-request");
 
         Mockito
-                .when(itemRequestRepository.getUserIfExist(1L))
+                .when(userRepository.findById(1L))
                 .thenReturn(Optional.ofNullable(itemRequest.getRequester()));
 
+        Item item = new Item(1L, "item", "test", true,
+                new User(3L, "itemOwner", "owner@user.ru"),
+                itemRequest1);
+
         List<ItemRequestDto> itemRequestDtos = RequestMapper.toItemRequestDtos(List.of(itemRequest, itemRequest1));
+        itemRequestDtos.get(1).getItems().add(ItemMapper.toItemDto(item));
         Mockito
                 .when(itemRequestRepository.findAllRequestsByUserId(owner.getId()))
                 .thenReturn(List.of(itemRequest, itemRequest1));
+        Mockito
+                .when(itemRequestRepository.findItemsByRequesterId(owner.getId()))
+                .thenReturn(List.of(item));
+
+        Assertions.assertEquals(itemRequestDtos, itemRequestService.findAllOwnerRequests(1L, null, null));
+
+        Mockito
+                .when(itemRequestRepository.findAllRequestsByUserId(owner.getId(), PageRequest.of(1, 1)))
+                .thenReturn(new PageImpl<>(List.of(itemRequest1)));
+        Mockito
+                .when(itemRequestRepository.findItemsByRequests(List.of(itemRequest1)))
+                .thenReturn(List.of(item));
 
-        Assertions.assertEquals(itemRequestDtos, itemRequestService.findAllOwnerRequests(1L));
+        Assertions.assertEquals(itemRequestDtos.subList(1, 2), itemRequestService.findAllOwnerRequests(1L, 1, 1));
+        Assertions.assertThrows(ValidationException.class, () -> itemRequestService.findAllOwnerRequests(1L, -1, 1));
     }
 
     @Test
@@ -102,20 +137,46 @@ public class RequestServiceTest {
                 .thenReturn(List.of(item));
 
         Mockito
-                .when(itemRequestRepository.getUserIfExist(2L))
+                .when(userRepository.findById(2L))
                 .thenReturn(Optional.of(new User(2L, "user", "user@user.ru")));
 
         List<ItemRequestDto> itemRequestDtos = RequestMapper.toItemRequestDtos(List.of(itemRequest, itemRequest1));
         Page<ItemRequest> page = new PageImpl<>(List.of(itemRequest, itemRequest1));
 
         Mockito
-                .when(itemRequestRepository.findAllRequestsExceptUserId(2L, PageRequest.of(0, 20, Sort.by("created"))))
+                .when(itemRequestRepository.findAllRequestsExceptUserId(2L, PageRequest.of(0, 20, Sort.by("created", "id"))))
                 .thenReturn(page);
         itemRequestDtos.get(0).getItems().add(ItemMapper.toItemDto(item));
 
         Assertions.assertEquals(itemRequestDtos, itemRequestService.findAllRequests(0, 20, 2L));
     }
 
+    @Test
+    public void findAllRequestsAfterTest() throws ValidationException, NotFoundException {
+        User requester = new User(1L, "requester", "requester@mail.ru");
+        ItemRequest itemRequest = new ItemRequest(1L, "test-request", LocalDateTime.now(), requester);
+        ItemRequest itemRequest1 = new ItemRequest(2L, "test-request", LocalDateTime.now().plusSeconds(1), requester);
+
+        Mockito
+                .when(userRepository.findById(2L))
+                .thenReturn(Optional.of(new User(2L, "user", "user@user.ru")));
+        Mockito
+                .when(itemRequestRepository.findFirstRequestsExceptUserId(2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(itemRequest, itemRequest1));
+        Mockito
+                .when(itemRequestRepository.findRequestsExceptUserIdAfter(2L, itemRequest.getCreated(), 1L,
+                        PageRequest.of(0, 2)))
+                .thenReturn(List.of(itemRequest1));
+
+        CursorPage<ItemRequestDto> page = itemRequestService.findAllRequestsAfter("", 1, 2L);
+        Assertions.assertEquals(RequestMapper.toItemRequestDtos(List.of(itemRequest)), page.getContent());
+
+        CursorPage<ItemRequestDto> lastPage = itemRequestService.findAllRequestsAfter(page.getNextCursor(), 1, 2L);
+        Assertions.assertEquals(RequestMapper.toItemRequestDtos(List.of(itemRequest1)), lastPage.getContent());
+        Assertions.assertNull(lastPage.getNextCursor());
+        Assertions.assertThrows(ValidationException.class, () -> itemRequestService.findAllRequestsAfter("", 0, 2L));
+    }
+
     @Test
     public void getRequestById() throws NotFoundException {
         User owner = new User(1L, "requester", "requester@mail.ru");
@@ -126,7 +187,7 @@ public class RequestServiceTest {
         itemRequest.setDescription("test-request");
 
         Mockito
-                .when(itemRequestRepository.getUserIfExist(1L))
+                .when(userRepository.findById(1L))
                 .thenReturn(Optional.ofNullable(itemRequest.getRequester()));
 
         Mockito
@@ -138,4 +199,29 @@ public class RequestServiceTest {
         Assertions.assertEquals(itemRequestDto, itemRequestService.getRequestById(1L, 1L));
 
     }
+
+    @Test
+    public void findMatchesTest() throws NotFoundException, ValidationException {
+        User requester = new User(1L, "requester", "requester@mail.ru");
+        User owner = new User(2L, "owner", "owner@mail.ru");
+        ItemRequest itemRequest = new ItemRequest(1L, "нужна дрель", LocalDateTime.now(), requester);
+        Item item = new Item(1L, "Дрель", "ударная дрель", true, owner, null);
+        RequestMatch requestMatch = new RequestMatch(itemRequest, item, 0.5, LocalDateTime.now());
+
+        Mockito
+                .when(userRepository.findById(2L))
+                .thenReturn(Optional.of(owner));
+        Mockito
+                .when(requestMatchRepository.findAllByItemOwnerId(2L, PageRequest.of(0, 20)))
+                .thenReturn(List.of(requestMatch));
+
+        List<RequestMatchDto> matches = itemRequestService.findMatches(2L, 0, 20);
+        Assertions.assertEquals(1, matches.size());
+        Assertions.assertEquals(RequestMapper.toItemRequestDto(itemRequest), matches.get(0).getRequest());
+        Assertions.assertEquals(ItemMapper.toItemDto(item), matches.get(0).getItem());
+        Assertions.assertEquals(0.5, matches.get(0).getScore());
+
+        Assertions.assertThrows(ValidationException.class, () -> itemRequestService.findMatches(2L, -1, 20));
+        Assertions.assertThrows(NotFoundException.class, () -> itemRequestService.findMatches(3L, 0, 20));
+    }
 }
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+
+public class NdjsonStreamerTest {
+    private PlatformTransactionManager transactionManager;
+    private EntityManager entityManager;
+    private NdjsonStreamer ndjsonStreamer;
+
+    @BeforeEach
+    public void initialize() {
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        entityManager = Mockito.mock(EntityManager.class);
+        ndjsonStreamer = new NdjsonStreamer(transactionManager, entityManager);
+    }
+
+    @Test
+    public void streamInChunksTest() throws IOException {
+        int rowCount = NdjsonStreamer.FETCH_SIZE * 2 + 1;
+        List<Integer> chunkSizes = new ArrayList<>();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ndjsonStreamer.stream(() -> LongStream.rangeClosed(1, rowCount).boxed(), chunk -> {
+            chunkSizes.add(chunk.size());
+            return chunk;
+        }).writeTo(outputStream);
+
+        String expected = IntStream.rangeClosed(1, rowCount)
+                .mapToObj(id -> id + "\n")
+                .collect(Collectors.joining());
+
+        Assertions.assertEquals(expected, outputStream.toString());
+        Assertions.assertEquals(List.of(NdjsonStreamer.FETCH_SIZE, NdjsonStreamer.FETCH_SIZE, 1), chunkSizes);
+        Mockito.verify(entityManager, Mockito.times(3)).clear();
+        Mockito.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void streamEmptyTest() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ndjsonStreamer.stream(Stream::empty, chunk -> chunk).writeTo(outputStream);
+
+        Assertions.assertEquals(0, outputStream.size());
+        Mockito.verify(entityManager, Mockito.never()).clear();
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class EmailFilterTest {
+
+    @Test
+    public void bloomFilterHasNoFalseNegativesTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("user" + i + "@mail.ru"));
+
+        Assertions.assertTrue(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("user" + i + "@mail.ru")));
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightContain("other" + i + "@mail.ru"))
+                .count();
+        Assertions.assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void filterAnswersAfterRebuildTest() {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        EmailFilter emailFilter = new EmailFilter(userRepository, Mockito.mock(PlatformTransactionManager.class),
+                100, 0.01);
+        Mockito
+                .when(userRepository.streamAllEmails())
+                .thenAnswer(invocation -> Stream.of("first@mail.ru", "second@mail.ru"));
+
+        Assertions.assertTrue(emailFilter.mightContain("new@mail.ru"));
+
+        emailFilter.rebuild();
+        emailFilter.put("third@mail.ru");
+
+        Assertions.assertTrue(emailFilter.mightContain("first@mail.ru"));
+        Assertions.assertTrue(emailFilter.mightContain("third@mail.ru"));
+        Assertions.assertFalse(emailFilter.mightContain("new@mail.ru"));
+        Assertions.assertTrue(emailFilter.mightContain(null));
+    }
+}
@@ -14,6 +14,8 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.exception.ControllerExceptionHandler;
 import ru.practicum.shareit.exception.InvalidArgumentException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
@@ -88,7 +90,7 @@ public class UserControllerTest {
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
-                .andExpect(MockMvcResultMatchers.status().isInternalServerError());
+                .andExpect(MockMvcResultMatchers.status().isConflict());
     }
 
     @Test
@@ -139,4 +141,29 @@ public class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[1].name", Matchers.is(userDto1.getName())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[1].email", Matchers.is(userDto1.getEmail())));
     }
+
+    @Test
+    public void findAllAfterTest() throws Exception {
+        UserDto userDto = new UserDto(1, "test", "test@mail.ru");
+
+        Mockito
+                .when(userService.findAllAfter("", 1))
+                .thenReturn(new CursorPage<>(List.of(userDto), "next"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users")
+                        .param("cursor", "")
+                        .param("size", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(userDto.getId()), Long.class));
+
+        Mockito
+                .when(userService.findAllAfter("", 0))
+                .thenThrow(ValidationException.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users")
+                        .param("cursor", "")
+                        .param("size", "0"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
 }
@@ -1,28 +1,46 @@
 package ru.practicum.shareit.user;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 import ru.practicum.shareit.exception.InvalidArgumentException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.stream.NdjsonStreamer;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public class UserServiceTest {
     private UserRepository userRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private EmailFilter emailFilter;
     private UserService userService;
 
     @BeforeEach
     public void initialize() {
         userRepository = Mockito.mock(UserRepository.class);
-        userService = new UserService(userRepository);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        emailFilter = new EmailFilter(userRepository, Mockito.mock(PlatformTransactionManager.class), 100, 0.01);
+        userService = new UserService(userRepository, eventPublisher, emailFilter,
+                new NdjsonStreamer(Mockito.mock(PlatformTransactionManager.class), Mockito.mock(EntityManager.class)));
     }
 
     @Test
@@ -58,6 +76,53 @@ public class UserServiceTest {
         Assertions.assertEquals(userDto, userService.addUser(userDto));
     }
 
+    @Test
+    public void addUserChecksOnlyProbableDuplicatesTest() throws InvalidArgumentException {
+        User user = new User(1L, "test", "test@test.ru");
+        User user1 = new User(2L, "test1", "test1@test.ru");
+        Mockito
+                .when(userRepository.streamAllEmails())
+                .thenAnswer(invocation -> Stream.of(user.getEmail()));
+        Mockito
+                .when(userRepository.save(Mockito.any(User.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito
+                .when(userRepository.countAllByEmail(user.getEmail()))
+                .thenReturn(1);
+        emailFilter.rebuild();
+
+        userService.addUser(UserMapper.toUserDto(user1));
+        Mockito.verify(userRepository, Mockito.never()).countAllByEmail(user1.getEmail());
+        Assertions.assertTrue(emailFilter.mightContain(user1.getEmail()));
+
+        Assertions.assertThrows(InvalidArgumentException.class,
+                () -> userService.addUser(UserMapper.toUserDto(user)));
+        Mockito.verify(userRepository).countAllByEmail(user.getEmail());
+    }
+
+    @Test
+    public void addUserMapsEmailConstraintTest() {
+        User user = new User(1L, "test", "test@test.ru");
+        User otherUser = new User(2L, "test", "other@test.ru");
+        Mockito
+                .when(userRepository.save(user))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("could not execute statement",
+                                new SQLException("duplicate key value violates unique constraint \"uq_email\""),
+                                "uq_email")));
+        Mockito
+                .when(userRepository.save(otherUser))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("could not execute statement",
+                                new SQLException("duplicate key value violates unique constraint \"pk_user\""),
+                                "pk_user")));
+
+        Assertions.assertThrows(InvalidArgumentException.class,
+                () -> userService.addUser(UserMapper.toUserDto(user)));
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> userService.addUser(UserMapper.toUserDto(otherUser)));
+    }
+
     @Test
     public void patchUserTest() throws InvalidArgumentException {
         User user = new User();
@@ -96,11 +161,28 @@ public class UserServiceTest {
                 () -> userService.patchUser(1, UserMapper.toUserDto(patchWithSameEmail)));
     }
 
+    @Test
+    public void patchUserRejectsEmailOfSingleExistingUserTest() {
+        User user = new User(1L, "test", "test@test.ru");
+        User otherUser = new User(2L, "test1", "test1@test.ru");
+        Mockito
+                .when(userRepository.getReferenceById(1L))
+                .thenReturn(user);
+        Mockito
+                .when(userRepository.countAllByEmail(otherUser.getEmail()))
+                .thenReturn(1);
+
+        Assertions.assertThrows(InvalidArgumentException.class,
+                () -> userService.patchUser(1L, new UserDto(1L, null, otherUser.getEmail())));
+        Mockito.verify(userRepository, Mockito.never()).save(Mockito.any(User.class));
+    }
+
     @Test
     public void deleteUserTest() {
         userService.deleteUser(1);
 
         Mockito.verify(userRepository, Mockito.times(1)).deleteById(1L);
+        Mockito.verify(eventPublisher).publishEvent(new UserChangedEvent(1L, true));
     }
 
     @Test
@@ -124,4 +206,38 @@ public class UserServiceTest {
 
         Assertions.assertEquals(UserMapper.toUserDtoList(users), userService.findAll());
     }
+
+    @Test
+    public void findAllAfterTest() throws ValidationException {
+        User user = new User(1L, "test", "test@test.ru");
+        User user1 = new User(2L, "test1", "test1@test.ru");
+
+        Mockito
+                .when(userRepository.findAllAfter(0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(user, user1));
+        Mockito
+                .when(userRepository.findAllAfter(1L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(user1));
+
+        CursorPage<UserDto> page = userService.findAllAfter("", 1);
+        Assertions.assertEquals(List.of(UserMapper.toUserDto(user)), page.getContent());
+
+        CursorPage<UserDto> lastPage = userService.findAllAfter(page.getNextCursor(), 1);
+        Assertions.assertEquals(List.of(UserMapper.toUserDto(user1)), lastPage.getContent());
+        Assertions.assertNull(lastPage.getNextCursor());
+        Assertions.assertThrows(ValidationException.class, () -> userService.findAllAfter("", 0));
+    }
+
+    @Test
+    public void streamAllTest() throws IOException {
+        Mockito
+                .when(userRepository.streamAll())
+                .thenReturn(Stream.of(new User(1L, "test", "test@test.ru"), new User(2L, "test1", "test1@test.ru")));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        userService.streamAll().writeTo(outputStream);
+
+        Assertions.assertEquals("{\"id\":1,\"name\":\"test\",\"email\":\"test@test.ru\"}\n" +
+                "{\"id\":2,\"name\":\"test1\",\"email\":\"test1@test.ru\"}\n", outputStream.toString());
+    }
 }